@@ -0,0 +1,67 @@
+package com.geoview.cache;
+
+import com.geoview.config.RedisConfig;
+import com.geoview.model.FavoriteCountrySet;
+import com.geoview.model.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cached User values through the typed JSON serializer (RedisConfig ObjectMapper)
+ * and through the binary serializer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class CacheSerializationBenchmark {
+
+    @Param({"0", "10", "50"})
+    public int favorites;
+
+    private GenericJackson2JsonRedisSerializer jsonSerializer;
+    private UserBinaryRedisSerializer binarySerializer;
+    private User user;
+    private byte[] jsonBytes;
+    private byte[] binaryBytes;
+
+    @Setup
+    public void setUp() {
+        jsonSerializer = new GenericJackson2JsonRedisSerializer(RedisConfig.redisObjectMapper());
+        binarySerializer = new UserBinaryRedisSerializer(jsonSerializer, true, 1024);
+
+        user = new User("benchmark", "benchmark@example.com", "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3mNOGn1q3oWcXkZ2W2W2W2W");
+        user.setId("65f0c0ffee0000000000beef");
+        FavoriteCountrySet favoriteSet = user.getFavorites();
+        for (int i = 0; i < favorites; i++) {
+            favoriteSet.getCodes().add(String.valueOf((char) ('A' + i / 26)) + (char) ('A' + i % 26));
+            favoriteSet.getBits()[FavoriteCountrySet.word(i)] |= FavoriteCountrySet.mask(i);
+        }
+
+        jsonBytes = jsonSerializer.serialize(user);
+        binaryBytes = binarySerializer.serialize(user);
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return jsonSerializer.serialize(user);
+    }
+
+    @Benchmark
+    public Object jsonDeserialize() {
+        return jsonSerializer.deserialize(jsonBytes);
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return binarySerializer.serialize(user);
+    }
+
+    @Benchmark
+    public Object binaryDeserialize() {
+        return binarySerializer.deserialize(binaryBytes);
+    }
+}
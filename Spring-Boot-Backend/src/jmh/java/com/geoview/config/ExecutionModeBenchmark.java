@@ -0,0 +1,109 @@
+package com.geoview.config;
+
+import org.apache.commons.pool2.BasePooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A burst of blocking requests on Tomcat's default 200 platform threads versus
+ * one virtual thread per request (spring.threads.virtual.enabled).
+ *
+ * Each simulated request borrows from a commons-pool2 pool sized like the Jedis
+ * pool (8 connections, finite max-wait) for a 1 ms Redis round trip, then holds
+ * one of 100 Mongo connections for a 3 ms query. The score is the time to drain
+ * the whole burst.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@State(Scope.Benchmark)
+public class ExecutionModeBenchmark {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    @Param({"200", "2000"})
+    public int inFlight;
+
+    private ExecutorService executor;
+    private GenericObjectPool<Object> redisPool;
+    private Semaphore mongoPool;
+
+    @Setup
+    public void setUp() {
+        executor = "virtual".equals(mode)
+            ? Executors.newVirtualThreadPerTaskExecutor()
+            : Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+
+        GenericObjectPoolConfig<Object> poolConfig = new GenericObjectPoolConfig<>();
+        poolConfig.setMaxTotal(8);
+        poolConfig.setMaxIdle(8);
+        poolConfig.setBlockWhenExhausted(true);
+        poolConfig.setMaxWait(Duration.ofSeconds(5));
+        redisPool = new GenericObjectPool<>(new BasePooledObjectFactory<>() {
+            @Override
+            public Object create() {
+                return new Object();
+            }
+
+            @Override
+            public PooledObject<Object> wrap(Object connection) {
+                return new DefaultPooledObject<>(connection);
+            }
+        }, poolConfig);
+
+        mongoPool = new Semaphore(100);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+        redisPool.close();
+    }
+
+    @Benchmark
+    public void burst() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(inFlight);
+        for (int i = 0; i < inFlight; i++) {
+            executor.execute(() -> {
+                try {
+                    handleRequest();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+
+    private void handleRequest() throws Exception {
+        Object connection = redisPool.borrowObject();
+        try {
+            Thread.sleep(1);
+        } finally {
+            redisPool.returnObject(connection);
+        }
+
+        mongoPool.acquire();
+        try {
+            Thread.sleep(3);
+        } finally {
+            mongoPool.release();
+        }
+    }
+}
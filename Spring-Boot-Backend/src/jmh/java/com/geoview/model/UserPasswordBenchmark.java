@@ -0,0 +1,36 @@
+package com.geoview.model;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * bcrypt verification cost as paid on /api/auth/login, per cost factor.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@State(Scope.Benchmark)
+public class UserPasswordBenchmark {
+
+    @Param({"10", "12"})
+    public int strength;
+
+    private PasswordEncoder encoder;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = new User("benchmark", "benchmark@example.com", "correct-horse-battery");
+        encoder = new BCryptPasswordEncoder(strength);
+        user.hashPassword(encoder);
+    }
+
+    @Benchmark
+    public boolean comparePassword() {
+        return user.comparePassword("correct-horse-battery", encoder);
+    }
+}
@@ -0,0 +1,54 @@
+package com.geoview.security;
+
+import com.geoview.model.User;
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token extraction from the request, and principal construction.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class AuthTokenFilterBenchmark {
+
+    private AuthTokenFilter filter;
+    private MockHttpServletRequest cookieRequest;
+    private MockHttpServletRequest headerRequest;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        filter = new AuthTokenFilter();
+        String token = JwtUtilsBenchmark.newJwtUtils(0).generateJwtToken("65f0c0ffee0000000000beef");
+
+        cookieRequest = new MockHttpServletRequest();
+        cookieRequest.setCookies(new Cookie("session", "other"), new Cookie("token", token));
+
+        headerRequest = new MockHttpServletRequest();
+        headerRequest.addHeader("Authorization", "Bearer " + token);
+
+        user = new User("benchmark", "benchmark@example.com", "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3mNOGn1q3oWcXkZ2W2W2W2W");
+        user.setId("65f0c0ffee0000000000beef");
+    }
+
+    @Benchmark
+    public String parseJwtFromCookie() {
+        return filter.parseJwt(cookieRequest);
+    }
+
+    @Benchmark
+    public String parseJwtFromHeader() {
+        return filter.parseJwt(headerRequest);
+    }
+
+    @Benchmark
+    public UserPrincipal createPrincipal() {
+        return UserPrincipal.create(user);
+    }
+}
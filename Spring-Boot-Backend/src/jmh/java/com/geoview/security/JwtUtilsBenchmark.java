@@ -0,0 +1,63 @@
+package com.geoview.security;
+
+import com.geoview.model.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token generation and verification, with and without the verified-token cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class JwtUtilsBenchmark {
+
+    private JwtUtils cachingJwtUtils;
+    private JwtUtils uncachedJwtUtils;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachingJwtUtils = newJwtUtils(10000);
+        uncachedJwtUtils = newJwtUtils(0);
+
+        user = new User("benchmark", "benchmark@example.com", "secret");
+        user.setId("65f0c0ffee0000000000beef");
+        token = cachingJwtUtils.generateJwtToken(user);
+        cachingJwtUtils.parseToken(token);
+    }
+
+    @Benchmark
+    public String generate() {
+        return cachingJwtUtils.generateJwtToken(user);
+    }
+
+    @Benchmark
+    public JwtClaims parseCached() {
+        return cachingJwtUtils.parseToken(token);
+    }
+
+    @Benchmark
+    public JwtClaims parseUncached() {
+        return uncachedJwtUtils.parseToken(token);
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return cachingJwtUtils.validateJwtToken(token);
+    }
+
+    static JwtUtils newJwtUtils(long cacheMaxSize) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "Benchmark_SecureJwtSecretKey_2024_HS256");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 604800000);
+        ReflectionTestUtils.setField(jwtUtils, "jwtCacheMaxSize", cacheMaxSize);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+}
@@ -0,0 +1,179 @@
+package com.geoview.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.Jedis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Per-cache inspection and clearing for the cache admin endpoints.
+ *
+ * Every Redis call goes through the template, which returns the pooled connection
+ * when the call completes. Clears SCAN one cache's keys and UNLINK them batch by
+ * batch, so a clear never blocks Redis or holds a connection for long.
+ */
+@Service
+public class CacheAdminService {
+
+    private static final int MEMORY_SAMPLE_KEYS = 50;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private RedisKeyScanner redisKeyScanner;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${geoview.cache.clearBatchSize:500}")
+    private int clearBatchSize;
+
+    @Value("${geoview.cache.statsScanBudget:10000}")
+    private int statsScanBudget;
+
+    public List<String> getCacheNames() {
+        return new ArrayList<>(cacheManager.getCacheNames());
+    }
+
+    public boolean hasCache(String cacheName) {
+        return cacheManager.getCacheNames().contains(cacheName);
+    }
+
+    /**
+     * Hit/miss/put/eviction counters for both tiers plus a sampled memory estimate.
+     * The sample examines at most {@code statsScanBudget} keys.
+     */
+    public Map<String, Object> getCacheStatistics(String cacheName, Long entryCount) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entryCount);
+
+        Cache cache = cacheManager.getCache(cacheName);
+        RedisCache redisCache = redisCache(cache);
+        if (redisCache != null) {
+            CacheStatistics redisStats = redisCache.getStatistics();
+            Map<String, Object> redis = new LinkedHashMap<>();
+            redis.put("hits", redisStats.getHits());
+            redis.put("misses", redisStats.getMisses());
+            redis.put("puts", redisStats.getPuts());
+            redis.put("evictions", redisStats.getDeletes());
+            redis.put("gets", redisStats.getGets());
+            redis.put("since", redisStats.getSince());
+            stats.put("redis", redis);
+        }
+
+        if (cache instanceof TwoLevelCache twoLevelCache) {
+            CacheStats localStats = twoLevelCache.localStats();
+            Map<String, Object> local = new LinkedHashMap<>();
+            local.put("entries", twoLevelCache.localSize());
+            local.put("hits", localStats.hitCount());
+            local.put("misses", localStats.missCount());
+            local.put("evictions", localStats.evictionCount());
+            stats.put("local", local);
+        }
+
+        // SCAN returns only matching keys, so bound the sample by the keys examined (about COUNT
+        // per call), not by matches: an empty cache must not walk the whole keyspace
+        int scanCount = redisKeyScanner.getDefaultScanCount();
+        int maxCalls = Math.max(1, statsScanBudget / scanCount);
+        List<String> sample = new ArrayList<>();
+        redisKeyScanner.scan(RedisKeyScanner.START_CURSOR, keyPattern(cacheName), scanCount, MEMORY_SAMPLE_KEYS,
+            maxCalls, sample::addAll);
+        if (!sample.isEmpty()) {
+            List<String> sampledKeys = sample.subList(0, Math.min(sample.size(), MEMORY_SAMPLE_KEYS));
+            long averageBytes = memoryUsage(sampledKeys) / sampledKeys.size();
+            stats.put("avgEntryBytes", averageBytes);
+            if (entryCount != null) {
+                stats.put("estimatedBytes", averageBytes * entryCount);
+            }
+        }
+
+        return stats;
+    }
+
+    /**
+     * Server-wide memory figures from INFO memory.
+     */
+    public Map<String, Object> getMemoryInfo() {
+        Properties info = redisTemplate.execute((RedisCallback<Properties>) connection ->
+            connection.serverCommands().info("memory"));
+
+        Map<String, Object> memory = new LinkedHashMap<>();
+        if (info != null) {
+            memory.put("usedMemory", info.getProperty("used_memory"));
+            memory.put("usedMemoryHuman", info.getProperty("used_memory_human"));
+            memory.put("maxMemory", info.getProperty("maxmemory"));
+            memory.put("fragmentationRatio", info.getProperty("mem_fragmentation_ratio"));
+        }
+        return memory;
+    }
+
+    /**
+     * Remove every entry of one cache: SCAN its keys and UNLINK them in batches,
+     * then drop the in-process copies on every node. Returns the number of keys removed.
+     */
+    public long clearCache(String cacheName) {
+        long[] removed = {0};
+        String cursor = RedisKeyScanner.START_CURSOR;
+        do {
+            cursor = redisKeyScanner.scan(cursor, keyPattern(cacheName), clearBatchSize, clearBatchSize,
+                batch -> removed[0] += unlink(batch));
+        } while (!RedisKeyScanner.START_CURSOR.equals(cursor));
+
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache instanceof TwoLevelCache twoLevelCache) {
+            twoLevelCache.invalidateNearCache();
+        }
+        return removed[0];
+    }
+
+    private long unlink(List<String> keys) {
+        byte[][] rawKeys = new byte[keys.size()][];
+        for (int i = 0; i < rawKeys.length; i++) {
+            rawKeys[i] = keys.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+        Long count = redisTemplate.execute((RedisCallback<Long>) connection -> connection.keyCommands().unlink(rawKeys));
+        return count != null ? count : 0;
+    }
+
+    private long memoryUsage(List<String> keys) {
+        Long total = redisTemplate.execute((RedisCallback<Long>) connection -> {
+            Jedis jedis = (Jedis) connection.getNativeConnection();
+            long bytes = 0;
+            for (String key : keys) {
+                Long usage = jedis.memoryUsage(key.getBytes(StandardCharsets.UTF_8));
+                bytes += usage != null ? usage : 0;
+            }
+            return bytes;
+        });
+        return total != null ? total : 0;
+    }
+
+    private static String keyPattern(String cacheName) {
+        return cacheName + RedisKeyScanner.CACHE_KEY_SEPARATOR + "*";
+    }
+
+    private static RedisCache redisCache(Cache cache) {
+        if (cache instanceof TwoLevelCache twoLevelCache) {
+            cache = twoLevelCache.getL2();
+        }
+        if (cache instanceof ResilientCache resilientCache) {
+            cache = resilientCache.getDelegate();
+        }
+        return cache instanceof RedisCache redisCache ? redisCache : null;
+    }
+}
@@ -0,0 +1,100 @@
+package com.geoview.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Publishes L1 invalidations over Redis pub/sub and applies the ones
+ * published by other nodes.
+ *
+ * Message format: {@code <nodeId>\n<cacheName>\n<E|C>\n<key>}, where E evicts
+ * one key and C clears the whole cache. Keys are sent as strings, which
+ * matches the SpEL keys used by the application caches.
+ */
+public class CacheInvalidationBroadcaster implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBroadcaster.class);
+
+    private static final String EVICT = "E";
+    private static final String CLEAR = "C";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private Function<String, TwoLevelCache> cacheLookup = name -> null;
+
+    public CacheInvalidationBroadcaster(StringRedisTemplate redisTemplate, String channel,
+                                        RedisCircuitBreaker circuitBreaker) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    void setCacheLookup(Function<String, TwoLevelCache> cacheLookup) {
+        this.cacheLookup = cacheLookup;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public void publishEvict(String cacheName, Object key) {
+        publish(cacheName, EVICT, String.valueOf(key));
+    }
+
+    public void publishClear(String cacheName) {
+        publish(cacheName, CLEAR, "");
+    }
+
+    /**
+     * The message that evicts one key, for publishers that do not go through this class's template.
+     */
+    public String evictMessage(String cacheName, Object key) {
+        return message(cacheName, EVICT, String.valueOf(key));
+    }
+
+    private String message(String cacheName, String op, String key) {
+        return nodeId + "\n" + cacheName + "\n" + op + "\n" + key;
+    }
+
+    private void publish(String cacheName, String op, String key) {
+        if (circuitBreaker.isOpen()) {
+            // The write was queued for replay, which publishes the invalidation once Redis is back
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(channel, message(cacheName, op, key));
+        } catch (Exception e) {
+            // L1 entries still expire on their own TTL, so a lost message only delays invalidation
+            log.warn("Failed to publish cache invalidation for {}: {}", cacheName, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 4);
+        if (parts.length < 4 || nodeId.equals(parts[0])) {
+            return;
+        }
+
+        TwoLevelCache cache = cacheLookup.apply(parts[1]);
+        if (cache == null) {
+            return;
+        }
+
+        if (CLEAR.equals(parts[2])) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(parts[3]);
+        }
+    }
+}
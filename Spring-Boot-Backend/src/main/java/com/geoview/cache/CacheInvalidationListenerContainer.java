@@ -0,0 +1,70 @@
+package com.geoview.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listener container for the L1 invalidation channel that tolerates Redis being down
+ * at startup: instead of failing the application context, the subscription is retried
+ * in the background until it succeeds. Until then L1 entries only expire on their TTL.
+ */
+public class CacheInvalidationListenerContainer extends RedisMessageListenerContainer {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationListenerContainer.class);
+
+    private final Duration retryInterval;
+    private final ScheduledExecutorService retryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-invalidation-subscribe");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CacheInvalidationListenerContainer(Duration retryInterval) {
+        this.retryInterval = retryInterval;
+    }
+
+    @Override
+    public void start() {
+        try {
+            super.start();
+        } catch (RuntimeException e) {
+            log.warn("Could not subscribe to cache invalidations, retrying every {} ms: {}",
+                retryInterval.toMillis(), e.getMessage());
+            // A failed start leaves the container marked as started; reset it before retrying
+            stopQuietly();
+            if (!retryExecutor.isShutdown()) {
+                retryExecutor.schedule(this::retryStart, retryInterval.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void retryStart() {
+        try {
+            super.start();
+            log.info("Subscribed to cache invalidations");
+        } catch (RuntimeException e) {
+            stopQuietly();
+            retryExecutor.schedule(this::retryStart, retryInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void stopQuietly() {
+        try {
+            super.stop();
+        } catch (RuntimeException e) {
+            log.debug("Listener container stop after failed subscribe: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        retryExecutor.shutdownNow();
+        super.destroy();
+    }
+}
@@ -0,0 +1,28 @@
+package com.geoview.cache;
+
+import java.util.List;
+
+/**
+ * Names of the application caches. Redis keys are {@code <cacheName>::<key>}.
+ *
+ * Each cache holds one projection of the user, sized to what its readers need; none
+ * holds credentials. The names differ from those of the former whole-{@code User}
+ * caches, so entries left over from those are never read as a projection.
+ */
+public final class CacheNames {
+
+    /** {@link com.geoview.model.UserProfile} by user id. */
+    public static final String USER_PROFILE = "userProfileView";
+    /** {@link com.geoview.model.UserProfile} by username. */
+    public static final String USER_BY_USERNAME = "userProfileByUsername";
+    /** {@link com.geoview.model.UserFavorites} by user id. */
+    public static final String USER_FAVORITES = "userFavorites";
+    /** User document version by id, enough to answer conditional GETs without the user. */
+    public static final String USER_VERSION = "userVersion";
+
+    /** Caches created eagerly, so admin endpoints can report them before first use. */
+    public static final List<String> ALL = List.of(USER_PROFILE, USER_BY_USERNAME, USER_FAVORITES, USER_VERSION);
+
+    private CacheNames() {
+    }
+}
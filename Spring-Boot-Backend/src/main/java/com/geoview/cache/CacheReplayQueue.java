@@ -0,0 +1,209 @@
+package com.geoview.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Cache writes that could not reach Redis (breaker open or call failed), replayed
+ * once Redis is back.
+ *
+ * Every skipped write is replayed as an invalidation: the key is deleted from Redis
+ * and L1s on other nodes are told to drop it. Skipped tag invalidations
+ * ({@link CacheTags}) are replayed the same way, for every key of the tag. Replaying the value itself could
+ * overwrite a newer one written by another node in the meantime; deleting it costs
+ * one extra MongoDB read. Only the key is kept, so repeated writes of one key take
+ * one slot; past {@code maxKeys} pending keys a cache is cleared as a whole instead.
+ */
+public class CacheReplayQueue implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheReplayQueue.class);
+
+    private final CacheInvalidationBroadcaster broadcaster;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final int maxKeys;
+    private final ScheduledExecutorService executor;
+    private volatile Function<String, Cache> redisCaches = name -> null;
+    private volatile Function<String, Set<String>> tagInvalidator = tag -> Set.of();
+
+    // Guarded by this
+    private final Map<String, Set<Object>> pendingEvictions = new LinkedHashMap<>();
+    private final Set<String> pendingClears = new LinkedHashSet<>();
+    private final Set<String> pendingTags = new LinkedHashSet<>();
+    private int pendingKeys;
+
+    /**
+     * @param replayInterval how often pending writes are retried while the breaker is closed
+     */
+    public CacheReplayQueue(CacheInvalidationBroadcaster broadcaster,
+                            RedisCircuitBreaker circuitBreaker,
+                            int maxKeys,
+                            Duration replayInterval) {
+        this.broadcaster = broadcaster;
+        this.circuitBreaker = circuitBreaker;
+        this.maxKeys = maxKeys;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-replay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        circuitBreaker.addCloseListener(() -> executor.execute(this::replay));
+        executor.scheduleWithFixedDelay(this::replay, replayInterval.toMillis(), replayInterval.toMillis(),
+            TimeUnit.MILLISECONDS);
+    }
+
+    /** Lookup of the raw Redis caches, by name; set by the {@link ResilientCacheManager}. */
+    void setRedisCaches(Function<String, Cache> redisCaches) {
+        this.redisCaches = redisCaches;
+    }
+
+    /**
+     * Deletes a tag's keys in Redis and returns them (as {@code <cacheName>::<key>}),
+     * or null on failure; set by {@link CacheTags}.
+     */
+    void setTagInvalidator(Function<String, Set<String>> tagInvalidator) {
+        this.tagInvalidator = tagInvalidator;
+    }
+
+    public synchronized void invalidateTag(String tag) {
+        pendingTags.add(tag);
+    }
+
+    public synchronized void evict(String cacheName, Object key) {
+        if (pendingClears.contains(cacheName)) {
+            return;
+        }
+        Set<Object> keys = pendingEvictions.computeIfAbsent(cacheName, name -> new LinkedHashSet<>());
+        if (keys.add(key) && ++pendingKeys > maxKeys) {
+            // Too many to track one by one: fall back to clearing the cache
+            clear(cacheName);
+        }
+    }
+
+    public synchronized void clear(String cacheName) {
+        Set<Object> dropped = pendingEvictions.remove(cacheName);
+        if (dropped != null) {
+            pendingKeys -= dropped.size();
+        }
+        pendingClears.add(cacheName);
+    }
+
+    public synchronized int pendingCount() {
+        return pendingKeys + pendingClears.size() + pendingTags.size();
+    }
+
+    /**
+     * Apply pending invalidations while the breaker lets calls through; stops at the first
+     * failure and keeps the rest for the next attempt.
+     */
+    void replay() {
+        try {
+            String cacheName;
+            while (circuitBreaker.getState() == RedisCircuitBreaker.State.CLOSED
+                    && (cacheName = next(pendingClears)) != null) {
+                Cache cache = redisCaches.apply(cacheName);
+                if (cache != null && !call(cache::clear)) {
+                    clear(cacheName);
+                    return;
+                }
+                broadcaster.publishClear(cacheName);
+            }
+
+            String tag;
+            while (circuitBreaker.getState() == RedisCircuitBreaker.State.CLOSED
+                    && (tag = next(pendingTags)) != null) {
+                Set<String> deleted = tagInvalidator.apply(tag);
+                if (deleted == null) {
+                    invalidateTag(tag);
+                    return;
+                }
+                for (String redisKey : deleted) {
+                    int separator = redisKey.indexOf(RedisKeyScanner.CACHE_KEY_SEPARATOR);
+                    if (separator > 0) {
+                        broadcaster.publishEvict(redisKey.substring(0, separator),
+                            redisKey.substring(separator + RedisKeyScanner.CACHE_KEY_SEPARATOR.length()));
+                    }
+                }
+            }
+
+            Map.Entry<String, Object> eviction;
+            while (circuitBreaker.getState() == RedisCircuitBreaker.State.CLOSED
+                    && (eviction = nextEviction()) != null) {
+                Cache cache = redisCaches.apply(eviction.getKey());
+                Object key = eviction.getValue();
+                if (cache != null && !call(() -> cache.evict(key))) {
+                    evict(eviction.getKey(), key);
+                    return;
+                }
+                broadcaster.publishEvict(eviction.getKey(), key);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Cache replay failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean call(Runnable redisCall) {
+        long start = System.nanoTime();
+        try {
+            redisCall.run();
+            circuitBreaker.onSuccess(System.nanoTime() - start);
+            return true;
+        } catch (RuntimeException e) {
+            circuitBreaker.onError(System.nanoTime() - start, e);
+            return false;
+        }
+    }
+
+    private synchronized String next(Set<String> pending) {
+        var iterator = pending.iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        String next = iterator.next();
+        iterator.remove();
+        return next;
+    }
+
+    private synchronized Map.Entry<String, Object> nextEviction() {
+        var caches = pendingEvictions.entrySet().iterator();
+        while (caches.hasNext()) {
+            var entry = caches.next();
+            var keys = entry.getValue().iterator();
+            if (keys.hasNext()) {
+                Object key = keys.next();
+                keys.remove();
+                pendingKeys--;
+                if (!keys.hasNext()) {
+                    caches.remove();
+                }
+                return Map.entry(entry.getKey(), key);
+            }
+            caches.remove();
+        }
+        return null;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("cache.replay.pending", this, CacheReplayQueue::pendingCount)
+            .description("Cache invalidations waiting for Redis to come back (keys, tags and whole-cache clears)")
+            .register(registry);
+    }
+}
@@ -0,0 +1,279 @@
+package com.geoview.cache;
+
+import com.geoview.model.UserView;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tags for cache entries in Redis: every entry derived from one user (by id, by
+ * username, ...) is registered in a Redis set {@code tag:user:<id>} holding its Redis
+ * keys, so one tag invalidation deletes all of them in a single atomic script,
+ * however the entries are keyed. New lookup-keyed caches only need a tag in
+ * {@link #tagFor}.
+ *
+ * Entries are tagged before they are written; when tagging fails the entry is not
+ * written. A tag lives as long as the longest TTL of its entries. Tags that cannot be
+ * invalidated because Redis is unavailable are queued in the {@link CacheReplayQueue}.
+ *
+ * A loader that read MongoDB before a write could otherwise tag and write its stale
+ * value after the write's invalidation ran, and the entry would live for its full TTL.
+ * Every invalidation therefore increments a global clock ({@value #CLOCK_KEY}) and
+ * stamps each tag it invalidates with it. A loader reads the clock before loading
+ * ({@link #clock()}); registering its entry fails if the tag was invalidated since
+ * ({@link #register(String, Object, Object, long)}), and once the entry is written
+ * {@link #confirm} deletes it if an invalidation ran in between. A stale value can
+ * thus stay in Redis for one round trip at most; a node that reads it in that window
+ * keeps it in its near cache until the near-cache TTL.
+ *
+ * The scripts touch keys they do not declare, which standalone Redis (used here)
+ * allows but Redis Cluster does not.
+ */
+public class CacheTags {
+
+    private static final String TAG_PREFIX = "tag:";
+    private static final String USER_TAG_PREFIX = TAG_PREFIX + "user:";
+
+    /** Incremented by every invalidation; read by loaders before they load. */
+    public static final String CLOCK_KEY = TAG_PREFIX + "clock";
+
+    /** Suffix of the key holding the clock value of a tag's last invalidation. */
+    private static final String INVALIDATED_SUFFIX = ":invalidated";
+
+    /**
+     * KEYS[1] = tag, ARGV[1] = member, ARGV[2] = tag TTL in ms, ARGV[3] (optional) = clock
+     * read before the value was loaded. Returns 0 without registering if the tag was
+     * invalidated after that clock value, 1 otherwise.
+     */
+    public static final RedisScript<Long> REGISTER = new DefaultRedisScript<>(
+            "if ARGV[3] and tonumber(redis.call('GET', KEYS[1] .. '" + INVALIDATED_SUFFIX + "') or '0') "
+            + "    > tonumber(ARGV[3]) then return 0 end "
+            + "redis.call('SADD', KEYS[1], ARGV[1]) "
+            + "if redis.call('PTTL', KEYS[1]) < tonumber(ARGV[2]) then redis.call('PEXPIRE', KEYS[1], ARGV[2]) end "
+            + "return 1",
+            Long.class);
+
+    /**
+     * KEYS[1] = tag, ARGV[1] = member (written after {@link #REGISTER}), ARGV[2] = clock read
+     * before the value was loaded. Deletes the member and returns 0 if the tag was
+     * invalidated after that clock value, returns 1 otherwise.
+     */
+    public static final RedisScript<Long> CONFIRM = new DefaultRedisScript<>(
+            "if tonumber(redis.call('GET', KEYS[1] .. '" + INVALIDATED_SUFFIX + "') or '0') > tonumber(ARGV[2]) then "
+            + "  redis.call('UNLINK', ARGV[1]) return 0 "
+            + "end "
+            + "return 1",
+            Long.class);
+
+    /**
+     * KEYS = tags, ARGV[1] = tag TTL in ms, ARGV[2..] = further keys to delete. Advances the
+     * clock and stamps the tags with it, deletes the tags, their members and the further
+     * keys; returns every deleted cache key.
+     */
+    @SuppressWarnings("rawtypes")
+    public static final RedisScript<List> INVALIDATE = new DefaultRedisScript<>(
+            "local clock = redis.call('INCR', '" + CLOCK_KEY + "') "
+            + "local keys = {} "
+            + "for _, tag in ipairs(KEYS) do "
+            + "  for _, member in ipairs(redis.call('SMEMBERS', tag)) do keys[#keys + 1] = member end "
+            + "  redis.call('UNLINK', tag) "
+            + "  redis.call('SET', tag .. '" + INVALIDATED_SUFFIX + "', clock, 'PX', ARGV[1]) "
+            + "end "
+            + "for i = 2, #ARGV do keys[#keys + 1] = ARGV[i] end "
+            + "for i = 1, #keys, 500 do redis.call('UNLINK', unpack(keys, i, math.min(i + 499, #keys))) end "
+            + "return keys",
+            List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final CacheReplayQueue replayQueue;
+    private final Duration tagTtl;
+
+    /**
+     * @param tagTtl how long a tag outlives its last registration (the longest entry TTL)
+     */
+    public CacheTags(StringRedisTemplate redisTemplate, RedisCircuitBreaker circuitBreaker,
+                     CacheReplayQueue replayQueue, Duration tagTtl) {
+        this.redisTemplate = redisTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.replayQueue = replayQueue;
+        this.tagTtl = tagTtl;
+        replayQueue.setTagInvalidator(tag -> invalidateInRedis(List.of(tag)));
+    }
+
+    /** How long a tag outlives its last registration. */
+    public Duration getTagTtl() {
+        return tagTtl;
+    }
+
+    public static String userTag(String userId) {
+        return USER_TAG_PREFIX + userId;
+    }
+
+    /**
+     * The tag of a cache entry, or null for entries that are not tagged.
+     */
+    public static String tagFor(String cacheName, Object key, Object value) {
+        if (value instanceof UserView user && user.getId() != null) {
+            return userTag(user.getId());
+        }
+        if (CacheNames.USER_VERSION.equals(cacheName)) {
+            return userTag(String.valueOf(key));
+        }
+        return null;
+    }
+
+    public static String redisKey(String cacheName, Object key) {
+        return cacheName + RedisKeyScanner.CACHE_KEY_SEPARATOR + key;
+    }
+
+    /**
+     * Keys of the entries always derived from a user id; deleted on invalidation even
+     * if they were never tagged (e.g. written before tagging existed).
+     */
+    public static List<String> idKeys(String userId) {
+        return List.of(redisKey(CacheNames.USER_PROFILE, userId), redisKey(CacheNames.USER_FAVORITES, userId),
+            redisKey(CacheNames.USER_VERSION, userId));
+    }
+
+    /**
+     * The invalidation clock, to be read before loading a value that will be cached, or
+     * null if Redis could not be reached (the value must not be cached then).
+     */
+    public Long clock() {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            String clock = redisTemplate.opsForValue().get(CLOCK_KEY);
+            circuitBreaker.onSuccess(System.nanoTime() - start);
+            return clock != null ? Long.parseLong(clock) : 0L;
+        } catch (RuntimeException e) {
+            circuitBreaker.onError(System.nanoTime() - start, e);
+            return null;
+        }
+    }
+
+    /**
+     * Register an entry under its tag before it is written. Returns false if the entry
+     * has a tag that could not be registered; the caller must not write it then.
+     */
+    public boolean register(String cacheName, Object key, Object value) {
+        return register(cacheName, key, value, null);
+    }
+
+    /**
+     * Register a loaded entry under its tag before it is written, unless the tag was
+     * invalidated after {@code clock} was read. Returns false if the caller must not
+     * write the entry.
+     */
+    public boolean register(String cacheName, Object key, Object value, long clock) {
+        return register(cacheName, key, value, Long.valueOf(clock));
+    }
+
+    private boolean register(String cacheName, Object key, Object value, Long clock) {
+        String tag = tagFor(cacheName, key, value);
+        if (tag == null) {
+            return true;
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            Long registered = clock != null
+                ? redisTemplate.execute(REGISTER, List.of(tag), redisKey(cacheName, key),
+                    String.valueOf(tagTtl.toMillis()), String.valueOf(clock))
+                : redisTemplate.execute(REGISTER, List.of(tag), redisKey(cacheName, key),
+                    String.valueOf(tagTtl.toMillis()));
+            circuitBreaker.onSuccess(System.nanoTime() - start);
+            return registered != null && registered == 1L;
+        } catch (RuntimeException e) {
+            circuitBreaker.onError(System.nanoTime() - start, e);
+            return false;
+        }
+    }
+
+    /**
+     * After a loaded entry was written: true if its tag was not invalidated since
+     * {@code clock} was read, false if it was (the entry has been deleted), null if Redis
+     * could not be asked (the caller should delete the entry).
+     */
+    public Boolean confirm(String cacheName, Object key, Object value, long clock) {
+        String tag = tagFor(cacheName, key, value);
+        if (tag == null) {
+            return true;
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            Long confirmed = redisTemplate.execute(CONFIRM, List.of(tag), redisKey(cacheName, key), String.valueOf(clock));
+            circuitBreaker.onSuccess(System.nanoTime() - start);
+            return confirmed != null && confirmed == 1L;
+        } catch (RuntimeException e) {
+            circuitBreaker.onError(System.nanoTime() - start, e);
+            return null;
+        }
+    }
+
+    /**
+     * Delete every entry of these users from Redis. Returns the deleted Redis keys, or
+     * null if Redis could not be reached; the tags are then queued for replay.
+     */
+    public Set<String> invalidateUsers(Collection<String> userIds) {
+        List<String> tags = userIds.stream().map(CacheTags::userTag).toList();
+        Set<String> deleted = invalidateInRedis(tags);
+        if (deleted == null) {
+            tags.forEach(replayQueue::invalidateTag);
+        }
+        return deleted;
+    }
+
+    /**
+     * The {@link #INVALIDATE} arguments for these tags: the tag TTL, then the id-keyed
+     * entries of user tags.
+     */
+    public List<String> invalidateArgs(List<String> tags) {
+        List<String> args = new ArrayList<>(tags.size() * 3 + 1);
+        args.add(String.valueOf(tagTtl.toMillis()));
+        for (String tag : tags) {
+            if (tag.startsWith(USER_TAG_PREFIX)) {
+                args.addAll(idKeys(tag.substring(USER_TAG_PREFIX.length())));
+            }
+        }
+        return args;
+    }
+
+    /**
+     * Run the invalidation script for these tags (plus the id-keyed entries of user tags).
+     * Returns the deleted keys, or null on failure.
+     */
+    private Set<String> invalidateInRedis(List<String> tags) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            List<?> deleted = redisTemplate.execute(INVALIDATE, tags, invalidateArgs(tags).toArray());
+            circuitBreaker.onSuccess(System.nanoTime() - start);
+            Set<String> result = new LinkedHashSet<>();
+            if (deleted != null) {
+                deleted.forEach(key -> result.add(String.valueOf(key)));
+            }
+            return result;
+        } catch (RuntimeException e) {
+            circuitBreaker.onError(System.nanoTime() - start, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.geoview.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache.ValueWrapper;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived Redis lock ({@code SET NX PX}) that lets one node load a missing cache
+ * entry while the others wait for it to appear in Redis instead of querying the
+ * database as well.
+ *
+ * Best effort by design: the lock expires on its own, waiters give up after
+ * {@code waitTimeout} and load themselves, and a Redis error means "no lock".
+ */
+public class DistributedLoadLock {
+
+    private static final Logger log = LoggerFactory.getLogger(DistributedLoadLock.class);
+
+    /** Returned by {@link #tryAcquire} when Redis could not be asked; load without a lock. */
+    public static final String NOT_LOCKED = "";
+
+    private static final String KEY_PREFIX = "lock:";
+
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final Duration lockTtl;
+    private final Duration waitTimeout;
+    private final Duration pollInterval;
+
+    public DistributedLoadLock(StringRedisTemplate redisTemplate, RedisCircuitBreaker circuitBreaker,
+                               Duration lockTtl, Duration waitTimeout, Duration pollInterval) {
+        this.redisTemplate = redisTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.lockTtl = lockTtl;
+        this.waitTimeout = waitTimeout;
+        this.pollInterval = pollInterval;
+    }
+
+    /**
+     * Returns a token when the lock was taken, null when another node holds it,
+     * or {@link #NOT_LOCKED} when Redis failed or the circuit breaker is open.
+     */
+    public String tryAcquire(String key) {
+        if (circuitBreaker.isOpen()) {
+            return NOT_LOCKED;
+        }
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean acquired = redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + key, token, lockTtl);
+            return Boolean.TRUE.equals(acquired) ? token : null;
+        } catch (Exception e) {
+            log.debug("Load lock unavailable for {}: {}", key, e.getMessage());
+            return NOT_LOCKED;
+        }
+    }
+
+    public void release(String key, String token) {
+        if (token == null || token.equals(NOT_LOCKED)) {
+            return;
+        }
+        try {
+            redisTemplate.execute(RELEASE, List.of(KEY_PREFIX + key), token);
+        } catch (Exception e) {
+            // The lock expires on its own
+            log.debug("Could not release load lock for {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Poll for the value another node is loading. Returns null if it did not show up in time.
+     */
+    public ValueWrapper awaitValue(Supplier<ValueWrapper> lookup) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(pollInterval.toNanos());
+            ValueWrapper value = lookup.get();
+            if (value != null && value.get() != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,42 @@
+package com.geoview.cache;
+
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Entry TTL drawn uniformly from {@code [ttl * (1 - jitter), ttl]}, so entries written
+ * together (e.g. refilled after a cache clear) do not all expire in the same instant.
+ */
+public class JitteredTtl implements RedisCacheWriter.TtlFunction {
+
+    private final long maxMillis;
+    private final long minMillis;
+
+    /**
+     * @param ttl    longest TTL handed out
+     * @param jitter fraction of the TTL that may be cut off (0 disables jitter)
+     */
+    public JitteredTtl(Duration ttl, double jitter) {
+        this.maxMillis = ttl.toMillis();
+        this.minMillis = (long) (maxMillis * (1.0 - Math.max(0.0, Math.min(jitter, 1.0))));
+    }
+
+    @Override
+    public Duration getTimeToLive(Object key, Object value) {
+        return next();
+    }
+
+    public Duration next() {
+        if (minMillis >= maxMillis) {
+            return Duration.ofMillis(maxMillis);
+        }
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(minMillis, maxMillis + 1));
+    }
+
+    /** Shortest TTL an entry can get; refresh-ahead treats it as the entry's lifetime. */
+    public Duration minimum() {
+        return Duration.ofMillis(minMillis);
+    }
+}
@@ -0,0 +1,234 @@
+package com.geoview.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Circuit breaker for Redis calls made by the caches.
+ *
+ * CLOSED: calls go through and their outcomes fill a sliding window of the last
+ * {@code windowSize} calls; once it holds {@code minimumCalls}, a failure rate or a
+ * slow-call rate at or above its threshold opens the breaker.
+ * OPEN: calls are rejected without touching Redis (callers fall back to MongoDB)
+ * until {@code openDuration} has passed.
+ * HALF_OPEN: {@code halfOpenProbes} calls are let through; if all of them succeed in
+ * time the breaker closes, any failure or slow call opens it again.
+ *
+ * Callers that were let through must report exactly one outcome
+ * ({@link #onSuccess} or {@link #onError}).
+ */
+public class RedisCircuitBreaker implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisCircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final byte OK = 0;
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final byte[] window;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenProbes;
+
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder slowCalls = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+
+    private final CopyOnWriteArrayList<Runnable> closeListeners = new CopyOnWriteArrayList<>();
+
+    private volatile State state = State.CLOSED;
+
+    // Guarded by this
+    private int windowPosition;
+    private int windowCalls;
+    private int windowFailures;
+    private int windowSlowCalls;
+    private long stateSince = System.nanoTime();
+    private int probesIssued;
+    private int probesSucceeded;
+
+    /**
+     * @param windowSize            number of recent calls the rates are computed over
+     * @param minimumCalls          calls needed in the window before the breaker may open
+     * @param failureRateThreshold  fraction of failed calls that opens the breaker
+     * @param slowCallRateThreshold fraction of calls slower than {@code slowCall} that opens it
+     * @param openDuration          how long calls are rejected before probing
+     * @param halfOpenProbes        successful probes needed to close again
+     */
+    public RedisCircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                               double slowCallRateThreshold, Duration slowCall, Duration openDuration,
+                               int halfOpenProbes) {
+        this.window = new byte[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCall.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+    }
+
+    /**
+     * Whether a Redis call may be made now. Returns false while the breaker is open
+     * and once the half-open probes are handed out.
+     */
+    public boolean tryAcquirePermission() {
+        State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (state == State.OPEN && now - stateSince >= openNanos) {
+                transition(State.HALF_OPEN, now);
+            } else if (state == State.HALF_OPEN && probesIssued >= halfOpenProbes && now - stateSince >= openNanos) {
+                // Probes that never reported back (e.g. cancelled): start over
+                transition(State.OPEN, now);
+            }
+            if (state == State.CLOSED) {
+                return true;
+            }
+            if (state == State.HALF_OPEN && probesIssued < halfOpenProbes) {
+                probesIssued++;
+                return true;
+            }
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * True while calls are being rejected; does not hand out a probe.
+     */
+    public boolean isOpen() {
+        return state == State.OPEN;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void onSuccess(long elapsedNanos) {
+        boolean slow = elapsedNanos >= slowCallNanos;
+        (slow ? slowCalls : successes).increment();
+        record(slow ? SLOW : OK);
+    }
+
+    public void onError(long elapsedNanos, Throwable error) {
+        failures.increment();
+        log.debug("Redis call failed after {} ms: {}", elapsedNanos / 1_000_000, error.getMessage());
+        record(FAILED);
+    }
+
+    /**
+     * Run after every transition to CLOSED (e.g. to replay writes skipped while open).
+     */
+    public void addCloseListener(Runnable listener) {
+        closeListeners.add(listener);
+    }
+
+    private void record(byte outcome) {
+        boolean closed = false;
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (state == State.HALF_OPEN) {
+                if (outcome != OK) {
+                    transition(State.OPEN, now);
+                } else if (++probesSucceeded >= halfOpenProbes) {
+                    transition(State.CLOSED, now);
+                    closed = true;
+                }
+            } else if (state == State.CLOSED) {
+                slide(outcome);
+                if (windowCalls >= minimumCalls
+                        && (windowFailures >= failureRateThreshold * windowCalls
+                            || windowSlowCalls >= slowCallRateThreshold * windowCalls)) {
+                    transition(State.OPEN, now);
+                }
+            }
+            // Late outcomes of calls started before the breaker opened are ignored
+        }
+        if (closed) {
+            closeListeners.forEach(Runnable::run);
+        }
+    }
+
+    private void slide(byte outcome) {
+        if (windowCalls == window.length) {
+            byte dropped = window[windowPosition];
+            if (dropped == FAILED) {
+                windowFailures--;
+            } else if (dropped == SLOW) {
+                windowSlowCalls--;
+            }
+        } else {
+            windowCalls++;
+        }
+        window[windowPosition] = outcome;
+        windowPosition = (windowPosition + 1) % window.length;
+        if (outcome == FAILED) {
+            windowFailures++;
+        } else if (outcome == SLOW) {
+            windowSlowCalls++;
+        }
+    }
+
+    private void transition(State next, long now) {
+        State previous = state;
+        state = next;
+        stateSince = now;
+        probesIssued = 0;
+        probesSucceeded = 0;
+        if (next == State.OPEN) {
+            opened.increment();
+            if (previous == State.CLOSED) {
+                log.warn("Redis circuit breaker opened ({} failed, {} slow of the last {} calls); "
+                    + "caches fall back to MongoDB", windowFailures, windowSlowCalls, windowCalls);
+            }
+        } else if (next == State.CLOSED) {
+            log.info("Redis circuit breaker closed; caching resumed");
+        }
+        if (next != State.HALF_OPEN) {
+            windowPosition = 0;
+            windowCalls = 0;
+            windowFailures = 0;
+            windowSlowCalls = 0;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("redis.circuit.state", this, breaker -> breaker.state.ordinal())
+            .description("Redis circuit breaker state: 0 closed, 1 open, 2 half-open")
+            .register(registry);
+        counter(registry, "success", successes);
+        counter(registry, "failure", failures);
+        counter(registry, "slow", slowCalls);
+        counter(registry, "rejected", rejected);
+        FunctionCounter.builder("redis.circuit.opened", opened, LongAdder::sum)
+            .description("Times the breaker opened")
+            .register(registry);
+    }
+
+    private static void counter(MeterRegistry registry, String outcome, LongAdder adder) {
+        FunctionCounter.builder("redis.circuit.calls", adder, LongAdder::sum)
+            .description("Cache calls to Redis by outcome; slow = succeeded above the slow-call threshold, "
+                + "rejected = skipped while the breaker was open")
+            .tag("outcome", outcome)
+            .register(registry);
+    }
+}
@@ -0,0 +1,145 @@
+package com.geoview.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Cursor-based key iteration over Redis using SCAN, never KEYS.
+ *
+ * Each SCAN call borrows a pooled connection only for that call, so long
+ * iterations never hold a connection or block the Redis server.
+ */
+@Component
+public class RedisKeyScanner {
+
+    public static final String START_CURSOR = "0";
+
+    /** Separator RedisCacheConfiguration puts between the cache name and the key. */
+    public static final String CACHE_KEY_SEPARATOR = "::";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${geoview.cache.scanCount:500}")
+    private int defaultScanCount;
+
+    @Value("${geoview.cache.scanMaxCalls:20}")
+    private int defaultMaxCalls;
+
+    public int getDefaultScanCount() {
+        return defaultScanCount;
+    }
+
+    /**
+     * Scan from the given cursor, handing each batch of keys to the sink, until at least
+     * {@code limit} keys have been seen, the default number of SCAN calls has been made,
+     * or the iteration completes.
+     * Returns the cursor to resume from, or {@link #START_CURSOR} when complete.
+     */
+    public String scan(String cursor, String pattern, int count, int limit, Consumer<List<String>> sink) {
+        return scan(cursor, pattern, count, limit, defaultMaxCalls, sink);
+    }
+
+    /**
+     * As {@link #scan(String, String, int, int, Consumer)}, making at most {@code maxCalls}
+     * SCAN calls. SCAN only returns matching keys, so a sparse pattern can need many calls
+     * per key; the call cap bounds the work of one request however few keys match.
+     */
+    public String scan(String cursor, String pattern, int count, int limit, int maxCalls,
+                       Consumer<List<String>> sink) {
+        ScanParams params = new ScanParams().match(pattern).count(count > 0 ? count : defaultScanCount);
+        String next = cursor != null ? cursor : START_CURSOR;
+        int seen = 0;
+        int calls = 0;
+
+        do {
+            ScanResult<byte[]> result = scanOnce(next, params);
+            List<String> batch = new ArrayList<>(result.getResult().size());
+            for (byte[] key : result.getResult()) {
+                batch.add(new String(key, StandardCharsets.UTF_8));
+            }
+            if (!batch.isEmpty()) {
+                sink.accept(batch);
+            }
+            seen += batch.size();
+            calls++;
+            next = result.getCursor();
+        } while (!START_CURSOR.equals(next) && seen < limit && calls < maxCalls);
+
+        return next;
+    }
+
+    /**
+     * Count keys per cache name (the prefix before {@code ::}) in a single SCAN pass,
+     * examining at most {@code budget} keys. The sample covers the whole keyspace when
+     * {@link KeySample#isComplete()} is true; otherwise counts can be extrapolated.
+     */
+    public KeySample sampleCacheKeys(int count, int budget) {
+        Map<String, Long> perCache = new TreeMap<>();
+        long[] scanned = {0};
+
+        // Every key matches "*", so the key budget alone bounds the pass
+        String next = scan(START_CURSOR, "*", count, budget, Integer.MAX_VALUE, batch -> {
+            scanned[0] += batch.size();
+            for (String key : batch) {
+                int separator = key.indexOf(CACHE_KEY_SEPARATOR);
+                String cacheName = separator > 0 ? key.substring(0, separator) : null;
+                if (cacheName != null) {
+                    perCache.merge(cacheName, 1L, Long::sum);
+                }
+            }
+        });
+
+        return new KeySample(perCache, scanned[0], START_CURSOR.equals(next));
+    }
+
+    public Long dbSize() {
+        return redisTemplate.execute((RedisCallback<Long>) connection -> connection.serverCommands().dbSize());
+    }
+
+    private ScanResult<byte[]> scanOnce(String cursor, ScanParams params) {
+        byte[] cursorBytes = cursor.getBytes(StandardCharsets.UTF_8);
+        return redisTemplate.execute((RedisCallback<ScanResult<byte[]>>) connection ->
+            ((Jedis) connection.getNativeConnection()).scan(cursorBytes, params));
+    }
+
+    /**
+     * Per-cache key counts from one bounded SCAN pass.
+     */
+    public static class KeySample {
+        private final Map<String, Long> keysPerCache;
+        private final long keysScanned;
+        private final boolean complete;
+
+        KeySample(Map<String, Long> keysPerCache, long keysScanned, boolean complete) {
+            this.keysPerCache = keysPerCache;
+            this.keysScanned = keysScanned;
+            this.complete = complete;
+        }
+
+        public Map<String, Long> getKeysPerCache() {
+            return keysPerCache;
+        }
+
+        public long getKeysScanned() {
+            return keysScanned;
+        }
+
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.geoview.cache;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Probabilistic early refresh ("XFetch"): a read of an entry that expires at
+ * {@code expiry} and took {@code delta} to load triggers a background reload when
+ * {@code now - delta * beta * ln(random) >= expiry}. Hot entries are therefore reloaded
+ * shortly before they expire, by one reader, while cold ones are left to expire.
+ *
+ * Reloads run on a small bounded pool; when it is saturated the refresh is skipped and
+ * the entry simply expires.
+ */
+public class RefreshAhead {
+
+    private final double beta;
+    private final long minDeltaMillis;
+    private final long lifetimeMillis;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param beta     eagerness; larger values refresh earlier, 0 disables refreshes
+     * @param minDelta floor for the measured load time, so fast loads still get a usable window
+     * @param lifetime how long an entry lives after a load (the shortest jittered TTL)
+     */
+    public RefreshAhead(double beta, Duration minDelta, Duration lifetime, int threads, int queueCapacity) {
+        this.beta = beta;
+        this.minDeltaMillis = minDelta.toMillis();
+        this.lifetimeMillis = lifetime.toMillis();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "cache-refresh-ahead");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /** Load time and expiry of the value this node last loaded for a key. */
+    record LoadStamp(long expiresAtMillis, long deltaMillis) {
+    }
+
+    LoadStamp stamp(long loadedAtMillis, long deltaMillis) {
+        return new LoadStamp(loadedAtMillis + lifetimeMillis, Math.max(deltaMillis, minDeltaMillis));
+    }
+
+    boolean isDue(LoadStamp stamp) {
+        if (beta <= 0) {
+            return false;
+        }
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble(); // (0, 1]
+        double earlyBy = -stamp.deltaMillis() * beta * Math.log(random);
+        return System.currentTimeMillis() + earlyBy >= stamp.expiresAtMillis();
+    }
+
+    /** Returns false if the refresh pool is saturated. */
+    boolean submit(Runnable refresh) {
+        try {
+            executor.execute(refresh);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,150 @@
+package com.geoview.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Redis cache guarded by the {@link RedisCircuitBreaker}: while Redis is failing or slow,
+ * reads report a miss (the caller loads from MongoDB) and writes, evictions and clears
+ * are handed to the {@link CacheReplayQueue} instead of waiting on Redis.
+ *
+ * A Redis error is never propagated to the caller; the entry expires on its TTL or is
+ * invalidated on replay.
+ */
+public class ResilientCache implements Cache {
+
+    private final Cache delegate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final CacheReplayQueue replayQueue;
+
+    public ResilientCache(Cache delegate, RedisCircuitBreaker circuitBreaker, CacheReplayQueue replayQueue) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.replayQueue = replayQueue;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    /** The Redis cache behind the breaker. */
+    public Cache getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return read(() -> delegate.get(key));
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return read(() -> delegate.get(key, type));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null && cached.get() != null) {
+            return (T) cached.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (!write(() -> delegate.put(key, value))) {
+            replayQueue.evict(getName(), key);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper[] existing = new ValueWrapper[1];
+        if (!write(() -> existing[0] = delegate.putIfAbsent(key, value))) {
+            replayQueue.evict(getName(), key);
+        }
+        return existing[0];
+    }
+
+    @Override
+    public void evict(Object key) {
+        if (!write(() -> delegate.evict(key))) {
+            replayQueue.evict(getName(), key);
+        }
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean[] present = new boolean[1];
+        if (!write(() -> present[0] = delegate.evictIfPresent(key))) {
+            replayQueue.evict(getName(), key);
+        }
+        return present[0];
+    }
+
+    @Override
+    public void clear() {
+        if (!write(delegate::clear)) {
+            replayQueue.clear(getName());
+        }
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean[] hadEntries = new boolean[1];
+        if (!write(() -> hadEntries[0] = delegate.invalidate())) {
+            replayQueue.clear(getName());
+        }
+        return hadEntries[0];
+    }
+
+    private <T> T read(Supplier<T> redisCall) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            T value = redisCall.get();
+            circuitBreaker.onSuccess(System.nanoTime() - start);
+            return value;
+        } catch (RuntimeException e) {
+            circuitBreaker.onError(System.nanoTime() - start, e);
+            return null;
+        }
+    }
+
+    /** Returns false if the write did not reach Redis. */
+    private boolean write(Runnable redisCall) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            redisCall.run();
+            circuitBreaker.onSuccess(System.nanoTime() - start);
+            return true;
+        } catch (RuntimeException e) {
+            circuitBreaker.onError(System.nanoTime() - start, e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.geoview.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * CacheManager that puts every cache of the wrapped Redis manager behind the
+ * {@link RedisCircuitBreaker} (see {@link ResilientCache}).
+ */
+public class ResilientCacheManager implements CacheManager {
+
+    private final CacheManager redisCacheManager;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final CacheReplayQueue replayQueue;
+    private final ConcurrentMap<String, ResilientCache> caches = new ConcurrentHashMap<>();
+
+    public ResilientCacheManager(CacheManager redisCacheManager,
+                                 RedisCircuitBreaker circuitBreaker,
+                                 CacheReplayQueue replayQueue) {
+        this.redisCacheManager = redisCacheManager;
+        this.circuitBreaker = circuitBreaker;
+        this.replayQueue = replayQueue;
+        replayQueue.setRedisCaches(redisCacheManager::getCache);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        ResilientCache existing = caches.get(name);
+        if (existing != null) {
+            return existing;
+        }
+
+        Cache redisCache = redisCacheManager.getCache(name);
+        if (redisCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> new ResilientCache(redisCache, circuitBreaker, replayQueue));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+}
@@ -0,0 +1,119 @@
+package com.geoview.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-process cache of finished JSON response bodies, keyed by
+ * {@code <userId>:<kind>:<documentVersion>}. A hit is written to the client as-is,
+ * skipping the user lookup, the response maps and the Jackson pass.
+ *
+ * Every profile/favorites update bumps the document version, so an entry can never be
+ * served for a newer document and nothing needs to be evicted: entries for old versions
+ * simply stop being read and age out. Writes made outside the application may not bump
+ * the version; those users are evicted through {@link #evictUsers}, using a per-user
+ * index of keys (the in-process counterpart of {@link CacheTags}). Bounded by total bytes.
+ */
+@Component
+public class ResponseBodyCache {
+
+    public static final String PROFILE = "profile";
+    public static final String FAVORITES = "favorites";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${geoview.cache.responseMaxBytes:33554432}")
+    private long maxBytes;
+
+    @Value("${geoview.cache.responseTtlMs:600000}")
+    private long ttlMs;
+
+    private Cache<String, byte[]> bodies;
+
+    /** Keys of each user's cached bodies; maintained on put and removal. */
+    private final ConcurrentMap<String, Set<String>> keysByUser = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        bodies = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, byte[] body) -> key.length() * 2 + body.length)
+                .expireAfterAccess(Duration.ofMillis(ttlMs))
+                .removalListener((String key, byte[] body, RemovalCause cause) -> {
+                    if (key != null && cause != RemovalCause.REPLACED) {
+                        unindex(key);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, bodies, "responseBody");
+    }
+
+    /**
+     * The cached body for this version of the user's document, or null.
+     */
+    public byte[] get(String userId, String kind, long version) {
+        return bodies.getIfPresent(key(userId, kind, version));
+    }
+
+    /**
+     * Serialize the response once and keep the bytes for this version of the document.
+     */
+    public byte[] put(String userId, String kind, long version, Object response) throws JsonProcessingException {
+        byte[] body = objectMapper.writeValueAsBytes(response);
+        String key = key(userId, kind, version);
+        keysByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(key);
+        bodies.put(key, body);
+        return body;
+    }
+
+    /**
+     * Drop every cached body of these users.
+     */
+    public void evictUsers(Set<String> userIds) {
+        for (String userId : userIds) {
+            Set<String> keys = keysByUser.remove(userId);
+            if (keys != null) {
+                bodies.invalidateAll(keys);
+            }
+        }
+    }
+
+    public void clear() {
+        bodies.invalidateAll();
+        keysByUser.clear();
+    }
+
+    private void unindex(String key) {
+        String userId = key.substring(0, key.indexOf(':'));
+        keysByUser.computeIfPresent(userId, (id, keys) -> {
+            // The listener runs asynchronously; the key may have been cached again since
+            if (!bodies.asMap().containsKey(key)) {
+                keys.remove(key);
+            }
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private static String key(String userId, String kind, long version) {
+        return userId + ':' + kind + ':' + version;
+    }
+}
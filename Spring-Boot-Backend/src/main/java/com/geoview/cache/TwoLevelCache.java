@@ -0,0 +1,481 @@
+package com.geoview.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache with a bounded in-process L1 in front of a shared L2 (Redis).
+ * Reads are served from L1 when possible; writes go to L2 first and are
+ * then broadcast so every node drops its L1 copy of the key.
+ *
+ * Loads through {@link #get(Object, Callable)} (used by {@code @Cacheable(sync = true)})
+ * are coalesced: concurrent misses for a key on this node share one load, and with a
+ * {@link DistributedLoadLock} other nodes wait for it to reach Redis. Entries this node
+ * loaded are reloaded in the background shortly before they expire ({@link RefreshAhead}).
+ * A loaded value whose tag was invalidated while it was loading is not cached
+ * ({@link CacheTags#clock()}).
+ */
+public class TwoLevelCache implements Cache {
+
+    private static final Logger log = LoggerFactory.getLogger(TwoLevelCache.class);
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> l1;
+    private final Cache l2;
+    private final CacheInvalidationBroadcaster broadcaster;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+
+    private final RefreshAhead refreshAhead;
+    private final DistributedLoadLock loadLock;
+    private final CacheTags tags;
+
+    /** Loads in progress on this node; later misses for the same key join them. */
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Object, Boolean> refreshing = new ConcurrentHashMap<>();
+    private final com.github.benmanes.caffeine.cache.Cache<Object, RefreshAhead.LoadStamp> loadStamps;
+
+    /** Bumped by every write or invalidation; a background reload that raced one is discarded. */
+    private final AtomicLong writeEpoch = new AtomicLong();
+
+    public TwoLevelCache(String name,
+                         com.github.benmanes.caffeine.cache.Cache<Object, Object> l1,
+                         Cache l2,
+                         CacheInvalidationBroadcaster broadcaster) {
+        this(name, l1, l2, broadcaster, null, null, 0, null);
+    }
+
+    /**
+     * @param refreshAhead  background reload of entries near expiry, or null
+     * @param loadLock      cross-node load coordination, or null
+     * @param maxLoadStamps number of keys whose load time/expiry is remembered for refresh-ahead
+     * @param tags          registers L2 entries under their tag before they are written, or null
+     */
+    public TwoLevelCache(String name,
+                         com.github.benmanes.caffeine.cache.Cache<Object, Object> l1,
+                         Cache l2,
+                         CacheInvalidationBroadcaster broadcaster,
+                         RefreshAhead refreshAhead,
+                         DistributedLoadLock loadLock,
+                         long maxLoadStamps,
+                         CacheTags tags) {
+        this.name = name;
+        this.l1 = l1;
+        this.l2 = l2;
+        this.broadcaster = broadcaster;
+        this.refreshAhead = refreshAhead;
+        this.loadLock = loadLock;
+        this.tags = tags;
+        this.loadStamps = Caffeine.newBuilder().maximumSize(refreshAhead != null ? maxLoadStamps : 0).build();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+
+    public Cache getL2() {
+        return l2;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object local = l1.getIfPresent(key);
+        if (local != null) {
+            localHits.increment();
+            return new SimpleValueWrapper(local);
+        }
+
+        long epoch = writeEpoch.get();
+        ValueWrapper remote = l2.get(key);
+        if (remote != null && remote.get() != null) {
+            remoteHits.increment();
+            putLocal(key, remote.get(), epoch);
+        } else {
+            misses.increment();
+        }
+        return remote;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object local = l1.getIfPresent(key);
+        if (local != null) {
+            localHits.increment();
+            maybeRefresh(key, valueLoader);
+            return (T) local;
+        }
+
+        long epoch = writeEpoch.get();
+        ValueWrapper remote = l2.get(key);
+        if (remote != null && remote.get() != null) {
+            remoteHits.increment();
+            putLocal(key, remote.get(), epoch);
+            maybeRefresh(key, valueLoader);
+            return (T) remote.get();
+        }
+
+        return (T) loadOnce(key, valueLoader);
+    }
+
+    /**
+     * Single-flight load: the first miss loads, concurrent misses for the key wait for its result.
+     */
+    private Object loadOnce(Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof ValueRetrievalException retrieval
+                    ? retrieval
+                    : new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+
+        try {
+            Object value = load(key, valueLoader);
+            flight.complete(value);
+            return value;
+        } catch (Exception e) {
+            ValueRetrievalException failure = e instanceof ValueRetrievalException retrieval
+                ? retrieval
+                : new ValueRetrievalException(key, valueLoader, e);
+            flight.completeExceptionally(failure);
+            throw failure;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) throws Exception {
+        String lockToken = null;
+        if (loadLock != null) {
+            String lockKey = name + RedisKeyScanner.CACHE_KEY_SEPARATOR + key;
+            lockToken = loadLock.tryAcquire(lockKey);
+            if (lockToken == null) {
+                // Another node is loading this key: use its result if it lands in time
+                long epoch = writeEpoch.get();
+                ValueWrapper published = loadLock.awaitValue(() -> l2.get(key));
+                if (published != null) {
+                    remoteHits.increment();
+                    putLocal(key, published.get(), epoch);
+                    return published.get();
+                }
+            }
+            try {
+                return loadAndStore(key, valueLoader);
+            } finally {
+                loadLock.release(lockKey, lockToken);
+            }
+        }
+        return loadAndStore(key, valueLoader);
+    }
+
+    private Object loadAndStore(Object key, Callable<?> valueLoader) throws Exception {
+        long startedAt = System.currentTimeMillis();
+        Long clock = tags != null ? tags.clock() : null;
+        Object value = valueLoader.call();
+        misses.increment();
+        // Nothing to cache for an absent value (e.g. an empty Optional); Redis rejects nulls
+        if (value != null) {
+            puts.increment();
+            if (putLoaded(key, value, clock)) {
+                recordLoad(key, startedAt);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Tag the entry and write it to L2. If it cannot be tagged it is not cached (and an
+     * older L2 copy is dropped), since a tag invalidation would not find it.
+     */
+    private boolean putRemote(Object key, Object value) {
+        if (tags == null || tags.register(name, key, value)) {
+            l2.put(key, value);
+            return true;
+        }
+        l2.evict(key);
+        return false;
+    }
+
+    /**
+     * Write a loaded value to L2 and L1 unless its tag was invalidated after {@code clock}
+     * was read, i.e. while the value was being loaded and may predate the write that
+     * caused the invalidation. Returns false if the value was not cached.
+     */
+    private boolean putLoaded(Object key, Object value, Long clock) {
+        if (tags == null || clock == null) {
+            if (!putRemote(key, value)) {
+                return false;
+            }
+        } else {
+            if (!tags.register(name, key, value, clock)) {
+                l2.evict(key);
+                return false;
+            }
+            l2.put(key, value);
+            // An invalidation between registering and writing found no entry to delete yet
+            Boolean confirmed = tags.confirm(name, key, value, clock);
+            if (!Boolean.TRUE.equals(confirmed)) {
+                if (confirmed == null) {
+                    l2.evict(key);
+                }
+                return false;
+            }
+        }
+        // An invalidation confirmed after us may drop its L1 copies before we add ours
+        putLocal(key, value, writeEpoch.get());
+        return true;
+    }
+
+    /**
+     * Copy a value read from L2 (or loaded) into L1, unless this node saw a write or
+     * invalidation since {@code epoch} was read: the value may predate it, and the
+     * invalidation may have cleared L1 before this copy landed.
+     */
+    private void putLocal(Object key, Object value, long epoch) {
+        l1.put(key, value);
+        if (writeEpoch.get() != epoch) {
+            l1.invalidate(key);
+        }
+    }
+
+    private void recordLoad(Object key, long startedAt) {
+        if (refreshAhead != null) {
+            long now = System.currentTimeMillis();
+            loadStamps.put(key, refreshAhead.stamp(now, now - startedAt));
+        }
+    }
+
+    /**
+     * Reload the entry in the background if refresh-ahead decides it is due. At most one
+     * reload per key runs at a time, and its result is dropped if the key was written or
+     * invalidated meanwhile.
+     */
+    private void maybeRefresh(Object key, Callable<?> valueLoader) {
+        if (refreshAhead == null) {
+            return;
+        }
+        RefreshAhead.LoadStamp stamp = loadStamps.getIfPresent(key);
+        if (stamp == null || !refreshAhead.isDue(stamp) || refreshing.putIfAbsent(key, Boolean.TRUE) != null) {
+            return;
+        }
+
+        long epoch = writeEpoch.get();
+        boolean submitted = refreshAhead.submit(() -> {
+            try {
+                long startedAt = System.currentTimeMillis();
+                Long clock = tags != null ? tags.clock() : null;
+                Object value = valueLoader.call();
+                if (writeEpoch.get() != epoch) {
+                    return;
+                }
+                if (value == null) {
+                    evict(key);
+                    return;
+                }
+                refreshes.increment();
+                if (putLoaded(key, value, clock)) {
+                    recordLoad(key, startedAt);
+                }
+            } catch (Exception e) {
+                log.debug("Refresh-ahead of {}::{} failed: {}", name, key, e.getMessage());
+            } finally {
+                refreshing.remove(key);
+            }
+        });
+        if (!submitted) {
+            refreshing.remove(key);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        writeEpoch.incrementAndGet();
+        loadStamps.invalidate(key);
+        puts.increment();
+        if (putRemote(key, value) && value != null) {
+            l1.put(key, value);
+        } else {
+            l1.invalidate(key);
+        }
+        broadcaster.publishEvict(name, key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        writeEpoch.incrementAndGet();
+        loadStamps.invalidate(key);
+        ValueWrapper existing = tags == null || tags.register(name, key, value) ? l2.putIfAbsent(key, value) : null;
+        l1.invalidate(key);
+        broadcaster.publishEvict(name, key);
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        writeEpoch.incrementAndGet();
+        loadStamps.invalidate(key);
+        evictions.increment();
+        l2.evict(key);
+        l1.invalidate(key);
+        broadcaster.publishEvict(name, key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        writeEpoch.incrementAndGet();
+        loadStamps.invalidate(key);
+        evictions.increment();
+        boolean present = l2.evictIfPresent(key);
+        l1.invalidate(key);
+        broadcaster.publishEvict(name, key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        writeEpoch.incrementAndGet();
+        loadStamps.invalidateAll();
+        l2.clear();
+        l1.invalidateAll();
+        broadcaster.publishClear(name);
+    }
+
+    @Override
+    public boolean invalidate() {
+        writeEpoch.incrementAndGet();
+        loadStamps.invalidateAll();
+        boolean hadEntries = l2.invalidate();
+        l1.invalidateAll();
+        broadcaster.publishClear(name);
+        return hadEntries;
+    }
+
+    /**
+     * Drop a key from this node's L1 only, in response to a remote invalidation.
+     */
+    void evictLocal(Object key) {
+        writeEpoch.incrementAndGet();
+        loadStamps.invalidate(key);
+        l1.invalidate(key);
+    }
+
+    /**
+     * Drop a key from the L1 on every node without touching L2, for callers that
+     * deleted the Redis entry themselves (tag invalidation).
+     */
+    public void evictNearCache(Object key) {
+        evictLocal(key);
+        broadcaster.publishEvict(name, key);
+    }
+
+    /**
+     * This node's L1 copy of the entry, without counting a hit or miss.
+     */
+    public Object peekLocal(Object key) {
+        return l1.policy().getIfPresentQuietly(key);
+    }
+
+    /**
+     * Drop every L1 entry on this node, in response to a remote clear.
+     */
+    void clearLocal() {
+        writeEpoch.incrementAndGet();
+        loadStamps.invalidateAll();
+        l1.invalidateAll();
+    }
+
+    /**
+     * Drop this cache's L1 entries on every node without touching L2,
+     * for callers that clear the Redis side themselves.
+     */
+    public void invalidateNearCache() {
+        writeEpoch.incrementAndGet();
+        loadStamps.invalidateAll();
+        l1.invalidateAll();
+        broadcaster.publishClear(name);
+    }
+
+    public long localSize() {
+        return l1.estimatedSize();
+    }
+
+    public CacheStats localStats() {
+        return l1.stats();
+    }
+
+    /** Reads served from this node's L1. */
+    public long localHitCount() {
+        return localHits.sum();
+    }
+
+    /** Reads served from L2 after an L1 miss. */
+    public long remoteHitCount() {
+        return remoteHits.sum();
+    }
+
+    /** Reads that found the key in neither tier. */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long putCount() {
+        return puts.sum();
+    }
+
+    /** Explicit single-key evictions; whole-cache clears are not counted. */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /** Misses that joined a load already in progress on this node instead of loading. */
+    public long coalescedLoadCount() {
+        return coalesced.sum();
+    }
+
+    /** Entries reloaded in the background before they expired. */
+    public long refreshCount() {
+        return refreshes.sum();
+    }
+}
@@ -0,0 +1,95 @@
+package com.geoview.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * CacheManager that layers a bounded in-process L1 over every cache of the
+ * wrapped L2 manager (the RedisCacheManager). Also used with a zero-size L1 so
+ * synchronized loads still get coalescing and refresh-ahead.
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final CacheManager l2CacheManager;
+    private final CacheInvalidationBroadcaster broadcaster;
+    private final long l1MaxSize;
+    private final Duration l1Ttl;
+    private final RefreshAhead refreshAhead;
+    private final DistributedLoadLock loadLock;
+    private final long maxLoadStamps;
+    private final CacheTags tags;
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager l2CacheManager,
+                                CacheInvalidationBroadcaster broadcaster,
+                                long l1MaxSize,
+                                Duration l1Ttl) {
+        this(l2CacheManager, broadcaster, l1MaxSize, l1Ttl, null, null, 0, null);
+    }
+
+    /**
+     * @param refreshAhead  background reload of hot entries before they expire, or null
+     * @param loadLock      cross-node coordination of cache-miss loads, or null
+     * @param maxLoadStamps keys per cache whose load time is tracked for refresh-ahead
+     * @param tags          tag registry for L2 entries, or null
+     */
+    public TwoLevelCacheManager(CacheManager l2CacheManager,
+                                CacheInvalidationBroadcaster broadcaster,
+                                long l1MaxSize,
+                                Duration l1Ttl,
+                                RefreshAhead refreshAhead,
+                                DistributedLoadLock loadLock,
+                                long maxLoadStamps,
+                                CacheTags tags) {
+        this.l2CacheManager = l2CacheManager;
+        this.broadcaster = broadcaster;
+        this.l1MaxSize = l1MaxSize;
+        this.l1Ttl = l1Ttl;
+        this.refreshAhead = refreshAhead;
+        this.loadLock = loadLock;
+        this.maxLoadStamps = maxLoadStamps;
+        this.tags = tags;
+        broadcaster.setCacheLookup(caches::get);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoLevelCache existing = caches.get(name);
+        if (existing != null) {
+            return existing;
+        }
+
+        Cache l2 = l2CacheManager.getCache(name);
+        if (l2 == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> new TwoLevelCache(
+            cacheName,
+            Caffeine.newBuilder()
+                .maximumSize(l1MaxSize)
+                .expireAfterWrite(l1Ttl)
+                .recordStats()
+                .build(),
+            l2,
+            broadcaster,
+            refreshAhead,
+            loadLock,
+            maxLoadStamps,
+            tags));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return l2CacheManager.getCacheNames();
+    }
+
+    public CacheManager getL2CacheManager() {
+        return l2CacheManager;
+    }
+}
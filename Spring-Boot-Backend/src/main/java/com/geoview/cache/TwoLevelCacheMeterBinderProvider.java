@@ -0,0 +1,90 @@
+package com.geoview.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lets Boot's cache metrics bind {@link TwoLevelCache}s: the standard
+ * {@code cache.gets{result=hit|miss}}, {@code cache.puts} and {@code cache.evictions}
+ * meters cover both tiers, {@code cache.local.*} show how many hits L1 absorbed, and
+ * {@code cache.load.coalesced} / {@code cache.refresh.ahead} show how many database
+ * loads coalescing and refresh-ahead saved.
+ */
+@Component
+public class TwoLevelCacheMeterBinderProvider implements CacheMeterBinderProvider<TwoLevelCache> {
+
+    @Override
+    public MeterBinder getMeterBinder(TwoLevelCache cache, Iterable<Tag> tags) {
+        return new TwoLevelCacheMeterBinder(cache, tags);
+    }
+
+    private static final class TwoLevelCacheMeterBinder extends CacheMeterBinder<TwoLevelCache> {
+
+        private final Iterable<Tag> tags;
+
+        private TwoLevelCacheMeterBinder(TwoLevelCache cache, Iterable<Tag> tags) {
+            super(cache, cache.getName(), tags);
+            this.tags = tags;
+        }
+
+        @Override
+        protected Long size() {
+            // Entry counts live in Redis; /api/cache/stats samples them on demand
+            return null;
+        }
+
+        @Override
+        protected long hitCount() {
+            TwoLevelCache cache = getCache();
+            return cache != null ? cache.localHitCount() + cache.remoteHitCount() : 0;
+        }
+
+        @Override
+        protected Long missCount() {
+            TwoLevelCache cache = getCache();
+            return cache != null ? cache.missCount() : null;
+        }
+
+        @Override
+        protected Long evictionCount() {
+            TwoLevelCache cache = getCache();
+            return cache != null ? cache.evictionCount() : null;
+        }
+
+        @Override
+        protected long putCount() {
+            TwoLevelCache cache = getCache();
+            return cache != null ? cache.putCount() : 0;
+        }
+
+        @Override
+        protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+            TwoLevelCache cache = getCache();
+            if (cache == null) {
+                return;
+            }
+            FunctionCounter.builder("cache.local.hits", cache, TwoLevelCache::localHitCount)
+                .tags(tags).tag("cache", cache.getName())
+                .description("Reads served from the in-process L1 without a Redis round trip")
+                .register(registry);
+            Gauge.builder("cache.local.size", cache, TwoLevelCache::localSize)
+                .tags(tags).tag("cache", cache.getName())
+                .description("Entries in the in-process L1")
+                .register(registry);
+            FunctionCounter.builder("cache.load.coalesced", cache, TwoLevelCache::coalescedLoadCount)
+                .tags(tags).tag("cache", cache.getName())
+                .description("Misses that waited for a load already in progress instead of loading")
+                .register(registry);
+            FunctionCounter.builder("cache.refresh.ahead", cache, TwoLevelCache::refreshCount)
+                .tags(tags).tag("cache", cache.getName())
+                .description("Entries reloaded in the background before they expired")
+                .register(registry);
+        }
+    }
+}
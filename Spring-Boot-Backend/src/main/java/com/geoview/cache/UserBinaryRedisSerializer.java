@@ -0,0 +1,351 @@
+package com.geoview.cache;
+
+import com.geoview.model.FavoriteCountry;
+import com.geoview.model.FavoriteCountrySet;
+import com.geoview.model.User;
+import com.geoview.model.UserFavorites;
+import com.geoview.model.UserProfile;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Cache value serializer that stores {@link User} values and the {@link UserProfile}
+ * and {@link UserFavorites} projections in compact, versioned binary layouts and
+ * hands every other value to a fallback serializer (the typed Jackson JSON serializer).
+ * {@link Long} values (document versions) are written as {@code MAGIC_LONG} plus 8
+ * bytes, or in JSON mode as a type-wrapped {@code ["java.lang.Long", n]}: the typed JSON
+ * serializer writes longs as bare numbers and would read small ones back as Integer.
+ *
+ * Layout: {@code magic, schemaVersion, flags, body}, where the magic byte names the
+ * type and the schema version counts per type. The body is deflated when the encoded
+ * value exceeds the compression threshold and compression actually helps. Favorites are
+ * written as the catalog fingerprint, the bitmap words and the codes in insertion
+ * order; older schemas carried the full favorite list, whose bitmap is rebuilt from the
+ * codes against the current catalog on read (without a catalog such entries read as a
+ * cache miss).
+ * Reads always accept both the binary layout and the legacy JSON written by the
+ * fallback serializer, so entries written before a switch (in either direction)
+ * stay readable until they expire.
+ */
+public class UserBinaryRedisSerializer implements RedisSerializer<Object> {
+
+    /** Never the first byte of a JSON document, which starts with '{', '[', '"' or a literal. */
+    static final byte MAGIC = (byte) 0xB7;
+
+    static final byte MAGIC_LONG = (byte) 0xB8;
+
+    static final byte MAGIC_PROFILE = (byte) 0xB9;
+
+    static final byte MAGIC_FAVORITES = (byte) 0xBA;
+
+    /** 2: adds the document version after the token version. 3: favorites bitmap. */
+    static final byte SCHEMA_VERSION = 3;
+
+    /** 2: favorites bitmap. */
+    static final byte PROFILE_SCHEMA_VERSION = 2;
+
+    /** 2: favorites bitmap. */
+    static final byte FAVORITES_SCHEMA_VERSION = 2;
+
+    private static final int FLAG_DEFLATED = 1;
+
+    private final RedisSerializer<Object> fallback;
+    private final boolean writeBinary;
+    private final int compressionThreshold;
+    private final Function<List<String>, FavoriteCountrySet> favoritesFromCodes;
+
+    /**
+     * @param fallback             serializer for other values and for legacy JSON entries
+     * @param writeBinary          false keeps writing JSON while still reading binary entries
+     * @param compressionThreshold encoded size in bytes above which the body is deflated; 0 disables
+     */
+    public UserBinaryRedisSerializer(RedisSerializer<Object> fallback, boolean writeBinary, int compressionThreshold) {
+        this(fallback, writeBinary, compressionThreshold, null);
+    }
+
+    /**
+     * @param favoritesFromCodes builds the favorites bitmap of entries written in the older
+     *                           list layouts from their codes (the country catalog); null
+     *                           reads such entries as a cache miss
+     */
+    public UserBinaryRedisSerializer(RedisSerializer<Object> fallback, boolean writeBinary, int compressionThreshold,
+                                     Function<List<String>, FavoriteCountrySet> favoritesFromCodes) {
+        this.fallback = fallback;
+        this.writeBinary = writeBinary;
+        this.compressionThreshold = compressionThreshold;
+        this.favoritesFromCodes = favoritesFromCodes;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (!writeBinary) {
+            if (value instanceof Long number) {
+                return ("[\"" + Long.class.getName() + "\"," + number + "]").getBytes(StandardCharsets.UTF_8);
+            }
+            return fallback.serialize(value);
+        }
+        if (value instanceof Long number) {
+            return ByteBuffer.allocate(9).put(MAGIC_LONG).putLong(number).array();
+        }
+
+        try {
+            if (value instanceof User user) {
+                return frame(MAGIC, SCHEMA_VERSION, encode(user));
+            }
+            if (value instanceof UserProfile profile) {
+                return frame(MAGIC_PROFILE, PROFILE_SCHEMA_VERSION, encode(profile));
+            }
+            if (value instanceof UserFavorites favorites) {
+                return frame(MAGIC_FAVORITES, FAVORITES_SCHEMA_VERSION, encode(favorites));
+            }
+        } catch (IOException e) {
+            throw new SerializationException("Could not write " + value.getClass().getSimpleName() + " cache value", e);
+        }
+        return fallback.serialize(value);
+    }
+
+    private byte[] frame(byte magic, byte schemaVersion, byte[] body) throws IOException {
+        int flags = 0;
+        if (compressionThreshold > 0 && body.length > compressionThreshold) {
+            byte[] deflated = deflate(body);
+            if (deflated.length < body.length) {
+                body = deflated;
+                flags |= FLAG_DEFLATED;
+            }
+        }
+
+        byte[] result = new byte[body.length + 3];
+        result[0] = magic;
+        result[1] = schemaVersion;
+        result[2] = (byte) flags;
+        System.arraycopy(body, 0, result, 3, body.length);
+        return result;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] == MAGIC_LONG && bytes.length == 9) {
+            return ByteBuffer.wrap(bytes, 1, 8).getLong();
+        }
+        byte magic = bytes[0];
+        int latestSchemaVersion = switch (magic) {
+            case MAGIC -> SCHEMA_VERSION;
+            case MAGIC_PROFILE -> PROFILE_SCHEMA_VERSION;
+            case MAGIC_FAVORITES -> FAVORITES_SCHEMA_VERSION;
+            default -> 0;
+        };
+        if (latestSchemaVersion == 0) {
+            return fallback.deserialize(bytes);
+        }
+        if (bytes.length < 3) {
+            throw new SerializationException("Truncated binary cache value");
+        }
+
+        int schemaVersion = bytes[1];
+        if (schemaVersion < 1 || schemaVersion > latestSchemaVersion) {
+            throw new SerializationException("Unsupported binary cache schema version: " + schemaVersion);
+        }
+        boolean bitmap = schemaVersion >= (magic == MAGIC ? 3 : 2);
+        if (!bitmap && favoritesFromCodes == null) {
+            return null;
+        }
+
+        InputStream body = new ByteArrayInputStream(bytes, 3, bytes.length - 3);
+        if ((bytes[2] & FLAG_DEFLATED) != 0) {
+            body = new InflaterInputStream(body);
+        }
+
+        try (DataInputStream in = new DataInputStream(body)) {
+            return switch (magic) {
+                case MAGIC_PROFILE -> decodeProfile(in, bitmap);
+                case MAGIC_FAVORITES -> decodeFavorites(in, bitmap);
+                default -> decode(in, schemaVersion, bitmap);
+            };
+        } catch (IOException e) {
+            throw new SerializationException("Could not read binary cache value", e);
+        }
+    }
+
+    private static byte[] encode(User user) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(buffer);
+
+        writeString(out, user.getId());
+        writeString(out, user.getUsername());
+        writeString(out, user.getEmail());
+        writeString(out, user.getPassword());
+        writeDateTime(out, user.getCreatedAt());
+        out.writeInt(user.getTokenVersion());
+        out.writeLong(user.getVersion());
+        writeFavorites(out, user.getFavorites());
+
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    private static byte[] encode(UserProfile profile) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(buffer);
+
+        writeString(out, profile.getId());
+        writeString(out, profile.getUsername());
+        writeString(out, profile.getEmail());
+        writeDateTime(out, profile.getCreatedAt());
+        out.writeInt(profile.getTokenVersion());
+        out.writeLong(profile.getVersion());
+        writeFavorites(out, profile.getFavorites());
+
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    private static byte[] encode(UserFavorites favorites) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(buffer);
+
+        writeString(out, favorites.getId());
+        out.writeLong(favorites.getVersion());
+        writeFavorites(out, favorites.getFavorites());
+
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    private User decode(DataInputStream in, int schemaVersion, boolean bitmap) throws IOException {
+        User user = new User();
+        user.setId(readString(in));
+        user.setUsername(readString(in));
+        user.setEmail(readString(in));
+        user.setPassword(readString(in));
+        user.setCreatedAt(readDateTime(in));
+        user.setTokenVersion(in.readInt());
+        if (schemaVersion >= 2) {
+            user.setVersion(in.readLong());
+        }
+        user.setFavorites(readFavorites(in, bitmap));
+        return user;
+    }
+
+    private UserProfile decodeProfile(DataInputStream in, boolean bitmap) throws IOException {
+        UserProfile profile = new UserProfile();
+        profile.setId(readString(in));
+        profile.setUsername(readString(in));
+        profile.setEmail(readString(in));
+        profile.setCreatedAt(readDateTime(in));
+        profile.setTokenVersion(in.readInt());
+        profile.setVersion(in.readLong());
+        profile.setFavorites(readFavorites(in, bitmap));
+        return profile;
+    }
+
+    private UserFavorites decodeFavorites(DataInputStream in, boolean bitmap) throws IOException {
+        String id = readString(in);
+        long version = in.readLong();
+        return new UserFavorites(id, readFavorites(in, bitmap), version);
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long epochSecond = in.readLong();
+        int nano = in.readInt();
+        return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+
+    private static void writeFavorites(DataOutputStream out, FavoriteCountrySet favorites) throws IOException {
+        out.writeBoolean(favorites != null);
+        if (favorites == null) {
+            return;
+        }
+        out.writeInt(favorites.getCatalog());
+        for (long word : favorites.getBits()) {
+            out.writeLong(word);
+        }
+        List<String> codes = favorites.getCodes();
+        out.writeShort(codes.size());
+        for (String code : codes) {
+            out.writeUTF(code);
+        }
+    }
+
+    /**
+     * @param bitmap false for the older layouts holding the full favorite list; the bitmap
+     *               is rebuilt from their codes
+     */
+    private FavoriteCountrySet readFavorites(DataInputStream in, boolean bitmap) throws IOException {
+        if (!bitmap) {
+            int count = in.readInt();
+            List<String> codes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                FavoriteCountry favorite = new FavoriteCountry(readString(in), readString(in), readString(in));
+                codes.add(favorite.getCountryCode());
+            }
+            return favoritesFromCodes.apply(codes);
+        }
+        if (!in.readBoolean()) {
+            return null;
+        }
+        int catalog = in.readInt();
+        long[] bits = new long[FavoriteCountrySet.WORDS];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = in.readLong();
+        }
+        int count = in.readUnsignedShort();
+        List<String> codes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            codes.add(in.readUTF());
+        }
+        return new FavoriteCountrySet(bits, codes, catalog);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static byte[] deflate(byte[] body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.length);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(buffer, deflater)) {
+            out.write(body);
+        } finally {
+            deflater.end();
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,71 @@
+package com.geoview.cache;
+
+import com.geoview.model.UserProfile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Drops every cache entry derived from a user (by id, by username, the serialized
+ * responses) with one tag invalidation, instead of each write path naming the
+ * caches and keys to evict.
+ *
+ * Redis entries go in one script call ({@link CacheTags}); the deleted keys are then
+ * evicted from the L1 on every node. If Redis is unavailable the tag is queued for
+ * replay and this node evicts what it can derive locally: the id-keyed entries and the
+ * username of a cached profile.
+ */
+@Component
+public class UserCacheInvalidator {
+
+    @Autowired
+    private CacheTags cacheTags;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ResponseBodyCache responseBodyCache;
+
+    public void invalidate(String userId) {
+        invalidate(List.of(userId));
+    }
+
+    public void invalidate(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Set<String> deleted = cacheTags.invalidateUsers(userIds);
+        Set<String> nearKeys = deleted != null ? deleted : locallyKnownKeys(userIds);
+        for (String redisKey : nearKeys) {
+            int separator = redisKey.indexOf(RedisKeyScanner.CACHE_KEY_SEPARATOR);
+            if (separator > 0 && cacheManager.getCache(redisKey.substring(0, separator)) instanceof TwoLevelCache cache) {
+                cache.evictNearCache(redisKey.substring(separator + RedisKeyScanner.CACHE_KEY_SEPARATOR.length()));
+            }
+        }
+        responseBodyCache.evictUsers(Set.copyOf(userIds));
+    }
+
+    private Set<String> locallyKnownKeys(Collection<String> userIds) {
+        Set<String> keys = new LinkedHashSet<>();
+        Cache profiles = cacheManager.getCache(CacheNames.USER_PROFILE);
+        for (String userId : userIds) {
+            keys.addAll(CacheTags.idKeys(userId));
+            Object cached = profiles instanceof TwoLevelCache twoLevelCache ? twoLevelCache.peekLocal(userId) : null;
+            if (cached instanceof Optional<?> optional) {
+                cached = optional.orElse(null);
+            }
+            if (cached instanceof UserProfile profile && profile.getUsername() != null) {
+                keys.add(CacheTags.redisKey(CacheNames.USER_BY_USERNAME, profile.getUsername()));
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,257 @@
+package com.geoview.cache;
+
+import com.geoview.service.UserDetailsServiceImpl;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evicts a user's cache entries whenever the user document changes in MongoDB, from a
+ * change stream on the users collection. Writes that bypass the service layer (admin
+ * tools, scripts, other services) are picked up too, so cache correctness no longer
+ * depends on every code path evicting, and TTLs can be raised.
+ *
+ * Changes are collected for up to {@code batchWindowMs} (or {@code batchSize} users),
+ * de-duplicated by user, and the users' cache tags invalidated in one call
+ * ({@link UserCacheInvalidator}); principals are evicted as well. After each batch
+ * the resume token is stored in {@value #RESUME_TOKEN_COLLECTION}, so a restart picks up where the stream stopped;
+ * if that point has fallen off the oplog, the user caches are cleared instead.
+ *
+ * Every node runs its own stream and they share one stored token; evictions are
+ * idempotent, so overlap between nodes only costs duplicate deletes. Requires a
+ * replica set, hence disabled by default.
+ */
+@Component
+public class UserChangeStreamInvalidator {
+
+    private static final Logger log = LoggerFactory.getLogger(UserChangeStreamInvalidator.class);
+
+    static final String RESUME_TOKEN_COLLECTION = "changeStreamResumeTokens";
+    private static final String STREAM_ID = "users";
+
+    // Server error codes for a resume point that is no longer in the oplog
+    private static final Set<Integer> HISTORY_LOST = Set.of(280, 286);
+
+    /** Idle streams still store their (advancing) resume token this often. */
+    private static final long IDLE_TOKEN_SAVE_MS = 60_000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ResponseBodyCache responseBodyCache;
+
+    @Autowired
+    private UserCacheInvalidator userCacheInvalidator;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Value("${geoview.cache.changeStreamEnabled:false}")
+    private boolean enabled;
+
+    @Value("${geoview.cache.changeStreamBatchSize:500}")
+    private int batchSize;
+
+    @Value("${geoview.cache.changeStreamBatchWindowMs:200}")
+    private long batchWindowMs;
+
+    @Value("${geoview.cache.changeStreamRetryMs:5000}")
+    private long retryMs;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "users-change-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean running;
+    private volatile MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        executor.execute(this::run);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        MongoChangeStreamCursor<?> open = cursor;
+        if (open != null) {
+            try {
+                open.close();
+            } catch (RuntimeException e) {
+                // Closing from another thread while tryNext() is blocked may fail; the thread is a daemon
+            }
+        }
+        executor.shutdownNow();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                watch();
+            } catch (MongoCommandException e) {
+                if (!running) {
+                    return;
+                }
+                if (HISTORY_LOST.contains(e.getErrorCode())) {
+                    log.warn("Stored resume token is no longer in the oplog; clearing user caches and watching from now");
+                    resumeTokens().deleteOne(Filters.eq("_id", STREAM_ID));
+                    clearUserCaches();
+                } else {
+                    log.warn("Users change stream failed, retrying in {} ms: {}", retryMs, e.getMessage());
+                    pause();
+                }
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Users change stream failed, retrying in {} ms: {}", retryMs, e.getMessage());
+                pause();
+            }
+        }
+    }
+
+    private void watch() {
+        var stream = mongoTemplate.getCollection(STREAM_ID)
+            .watch(List.of(
+                Aggregates.match(Filters.in("operationType", "insert", "update", "replace", "delete")),
+                // Only the document key is needed: tags find every entry of the user
+                Aggregates.project(Projections.include("documentKey"))))
+            .maxAwaitTime(batchWindowMs, TimeUnit.MILLISECONDS);
+        BsonDocument resumeToken = loadResumeToken();
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> changes = stream.cursor()) {
+            cursor = changes;
+            log.info("Watching users for cache invalidation{}", resumeToken != null ? " (resumed)" : "");
+
+            Set<String> batch = new LinkedHashSet<>();
+            long batchStarted = 0;
+            long tokenSaved = System.currentTimeMillis();
+            while (running) {
+                ChangeStreamDocument<Document> change = changes.tryNext();
+                long now = System.currentTimeMillis();
+                if (change != null) {
+                    if (batch.isEmpty()) {
+                        batchStarted = now;
+                    }
+                    String userId = userId(change);
+                    if (userId != null) {
+                        batch.add(userId);
+                    }
+                }
+
+                boolean due = change == null || batch.size() >= batchSize || now - batchStarted >= batchWindowMs;
+                if (!batch.isEmpty() && due) {
+                    invalidate(batch);
+                    batch.clear();
+                    saveResumeToken(changes.getResumeToken());
+                    tokenSaved = now;
+                } else if (batch.isEmpty() && now - tokenSaved >= IDLE_TOKEN_SAVE_MS) {
+                    saveResumeToken(changes.getResumeToken());
+                    tokenSaved = now;
+                }
+            }
+        } finally {
+            cursor = null;
+        }
+    }
+
+    private static String userId(ChangeStreamDocument<Document> change) {
+        BsonDocument documentKey = change.getDocumentKey();
+        BsonValue id = documentKey != null ? documentKey.get("_id") : null;
+        if (id == null) {
+            return null;
+        }
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString()
+            : id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    private void invalidate(Set<String> userIds) {
+        userCacheInvalidator.invalidate(userIds);
+        userIds.forEach(userDetailsService::evictPrincipal);
+        log.debug("Invalidated cache entries of {} changed users", userIds.size());
+    }
+
+    private void clearUserCaches() {
+        CacheNames.ALL.forEach(name -> {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        });
+        responseBodyCache.clear();
+    }
+
+    private MongoCollection<BsonDocument> resumeTokens() {
+        return mongoTemplate.getDb().getCollection(RESUME_TOKEN_COLLECTION, BsonDocument.class);
+    }
+
+    private BsonDocument loadResumeToken() {
+        BsonDocument stored = resumeTokens().find(Filters.eq("_id", STREAM_ID)).first();
+        return stored != null && stored.isDocument("token") ? stored.getDocument("token") : null;
+    }
+
+    private void saveResumeToken(BsonDocument token) {
+        if (token == null) {
+            return;
+        }
+        try {
+            BsonDocument stored = new BsonDocument("_id", new BsonString(STREAM_ID))
+                .append("token", token)
+                .append("updatedAt", new BsonDateTime(System.currentTimeMillis()));
+            resumeTokens().replaceOne(Filters.eq("_id", STREAM_ID), stored, new ReplaceOptions().upsert(true));
+        } catch (RuntimeException e) {
+            // Losing a token only means replaying (idempotent) evictions after a restart
+            log.warn("Could not store users change stream resume token: {}", e.getMessage());
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(retryMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
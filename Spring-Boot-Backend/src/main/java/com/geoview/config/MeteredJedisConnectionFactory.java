@@ -0,0 +1,54 @@
+package com.geoview.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisClientConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.util.Pool;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * JedisConnectionFactory that keeps a handle on the pool it creates, so pool
+ * occupancy can be published: {@code redis.pool.active}, {@code redis.pool.idle},
+ * {@code redis.pool.waiters} and the borrow wait times.
+ */
+public class MeteredJedisConnectionFactory extends JedisConnectionFactory implements MeterBinder {
+
+    private volatile Pool<Jedis> pool;
+
+    public MeteredJedisConnectionFactory(RedisStandaloneConfiguration standaloneConfig,
+                                         JedisClientConfiguration clientConfig) {
+        super(standaloneConfig, clientConfig);
+    }
+
+    @Override
+    protected Pool<Jedis> createRedisPool() {
+        Pool<Jedis> created = super.createRedisPool();
+        pool = created;
+        return created;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        gauge(registry, "redis.pool.active", "Connections currently borrowed", Pool::getNumActive);
+        gauge(registry, "redis.pool.idle", "Connections idle in the pool", Pool::getNumIdle);
+        gauge(registry, "redis.pool.waiters", "Threads blocked waiting for a connection", Pool::getNumWaiters);
+        gauge(registry, "redis.pool.max", "Maximum pool size", Pool::getMaxTotal);
+        gauge(registry, "redis.pool.borrow.wait.mean", "Mean time spent waiting to borrow, in milliseconds",
+            pool -> pool.getMeanBorrowWaitDuration().toMillis());
+        gauge(registry, "redis.pool.borrow.wait.max", "Longest time spent waiting to borrow, in milliseconds",
+            pool -> pool.getMaxBorrowWaitDuration().toMillis());
+    }
+
+    private void gauge(MeterRegistry registry, String name, String description, ToDoubleFunction<Pool<Jedis>> value) {
+        // The pool is created when the factory starts; report NaN until then
+        Gauge.builder(name, this, factory -> factory.pool != null ? value.applyAsDouble(factory.pool) : Double.NaN)
+            .description(description)
+            .tag("client", "jedis")
+            .register(registry);
+    }
+}
@@ -0,0 +1,37 @@
+package com.geoview.config;
+
+import com.geoview.mongo.SlowQuerySampler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class MongoConfig {
+
+    @Value("${geoview.mongo.maxPoolSize:100}")
+    private int maxPoolSize;
+
+    @Value("${geoview.mongo.poolMaxWaitMs:2000}")
+    private long poolMaxWaitMs;
+
+    /**
+     * Register the slow-query sampler with the driver so it sees every command.
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer slowQuerySamplerCustomizer(SlowQuerySampler slowQuerySampler) {
+        return builder -> builder.addCommandListener(slowQuerySampler);
+    }
+
+    /**
+     * Bound Mongo concurrency by the pool, with a finite wait instead of the driver's two-minute default.
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer connectionPoolCustomizer() {
+        return builder -> builder.applyToConnectionPoolSettings(pool -> pool
+            .maxSize(maxPoolSize)
+            .maxWaitTime(poolMaxWaitMs, TimeUnit.MILLISECONDS));
+    }
+}
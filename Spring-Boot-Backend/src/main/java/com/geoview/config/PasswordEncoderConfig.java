@@ -0,0 +1,23 @@
+package com.geoview.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Password encoder shared by the servlet and reactive security configurations.
+ */
+@Configuration
+public class PasswordEncoderConfig {
+
+    @Value("${geoview.security.bcryptStrength:10}")
+    private int bcryptStrength;
+
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        // Hashes with a lower cost than this are upgraded on the next successful login
+        return new BCryptPasswordEncoder(bcryptStrength);
+    }
+}
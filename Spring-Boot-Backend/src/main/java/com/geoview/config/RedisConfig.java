@@ -5,28 +5,55 @@ import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.geoview.cache.CacheInvalidationBroadcaster;
+import com.geoview.cache.CacheInvalidationListenerContainer;
+import com.geoview.cache.CacheNames;
+import com.geoview.cache.CacheReplayQueue;
+import com.geoview.cache.CacheTags;
+import com.geoview.cache.DistributedLoadLock;
+import com.geoview.cache.JitteredTtl;
+import com.geoview.cache.RedisCircuitBreaker;
+import com.geoview.cache.RefreshAhead;
+import com.geoview.cache.ResilientCacheManager;
+import com.geoview.cache.TwoLevelCacheManager;
+import com.geoview.cache.UserBinaryRedisSerializer;
+import com.geoview.country.CountryCatalog;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.BatchStrategies;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisClientConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import redis.clients.jedis.JedisPoolConfig;
 
 import java.time.Duration;
+import java.util.LinkedHashSet;
 
 @Configuration
 @EnableCaching
 public class RedisConfig {
 
+    private static final String SERIALIZER_BINARY = "binary";
+
+    /** Entry TTL of the application caches in Redis (before jitter). */
+    @Value("${spring.cache.redis.time-to-live:10m}")
+    private Duration cacheTtl;
+
     @Value("${spring.data.redis.host}")
     private String redisHost;
 
@@ -36,11 +63,103 @@ public class RedisConfig {
     @Value("${spring.data.redis.password:}")
     private String redisPassword;
 
-    @Value("${spring.data.redis.timeout:60000}")
-    private long timeout;
+    @Value("${spring.data.redis.timeout:2000ms}")
+    private Duration readTimeout;
+
+    @Value("${spring.data.redis.connect-timeout:2000ms}")
+    private Duration connectTimeout;
+
+    @Value("${spring.data.redis.jedis.pool.max-active:8}")
+    private int poolMaxActive;
+
+    @Value("${spring.data.redis.jedis.pool.max-idle:8}")
+    private int poolMaxIdle;
+
+    @Value("${spring.data.redis.jedis.pool.min-idle:0}")
+    private int poolMinIdle;
+
+    @Value("${spring.data.redis.jedis.pool.max-wait:200ms}")
+    private Duration poolMaxWait;
+
+    @Value("${geoview.cache.l1Enabled:true}")
+    private boolean l1Enabled;
+
+    @Value("${geoview.cache.l1MaxSize:10000}")
+    private long l1MaxSize;
+
+    @Value("${geoview.cache.l1TtlMs:30000}")
+    private long l1TtlMs;
+
+    @Value("${geoview.cache.invalidationChannel:geoview:cache:invalidate}")
+    private String invalidationChannel;
+
+    @Value("${geoview.cache.clearBatchSize:500}")
+    private int clearBatchSize;
+
+    @Value("${geoview.cache.serializer:binary}")
+    private String cacheSerializer;
+
+    @Value("${geoview.cache.compressionThreshold:1024}")
+    private int compressionThreshold;
+
+    @Value("${geoview.cache.ttlJitter:0.1}")
+    private double ttlJitter;
+
+    @Value("${geoview.cache.refreshAheadBeta:1.0}")
+    private double refreshAheadBeta;
+
+    @Value("${geoview.cache.refreshAheadMinDeltaMs:500}")
+    private long refreshAheadMinDeltaMs;
+
+    @Value("${geoview.cache.refreshAheadThreads:2}")
+    private int refreshAheadThreads;
+
+    @Value("${geoview.cache.refreshAheadQueue:1000}")
+    private int refreshAheadQueue;
+
+    @Value("${geoview.cache.refreshAheadMaxKeys:100000}")
+    private long refreshAheadMaxKeys;
 
+    @Value("${geoview.cache.loadLockEnabled:false}")
+    private boolean loadLockEnabled;
+
+    @Value("${geoview.cache.loadLockTtlMs:2000}")
+    private long loadLockTtlMs;
+
+    @Value("${geoview.cache.loadLockWaitMs:300}")
+    private long loadLockWaitMs;
+
+    @Value("${geoview.cache.breakerWindowSize:50}")
+    private int breakerWindowSize;
+
+    @Value("${geoview.cache.breakerMinimumCalls:20}")
+    private int breakerMinimumCalls;
+
+    @Value("${geoview.cache.breakerFailureRate:0.5}")
+    private double breakerFailureRate;
+
+    @Value("${geoview.cache.breakerSlowCallRate:0.8}")
+    private double breakerSlowCallRate;
+
+    @Value("${geoview.cache.breakerSlowCallMs:250}")
+    private long breakerSlowCallMs;
+
+    @Value("${geoview.cache.breakerOpenMs:10000}")
+    private long breakerOpenMs;
+
+    @Value("${geoview.cache.breakerHalfOpenProbes:5}")
+    private int breakerHalfOpenProbes;
+
+    @Value("${geoview.cache.replayMaxKeys:10000}")
+    private int replayMaxKeys;
+
+    @Value("${geoview.cache.replayIntervalMs:5000}")
+    private long replayIntervalMs;
+
+    // Primary: the reactive profile adds a Lettuce factory for the reactive templates only
     @Bean
-    public JedisConnectionFactory jedisConnectionFactory() {
+    @Primary
+    public MeteredJedisConnectionFactory jedisConnectionFactory() {
         RedisStandaloneConfiguration redisStandaloneConfiguration = new RedisStandaloneConfiguration();
         redisStandaloneConfiguration.setHostName(redisHost);
         redisStandaloneConfiguration.setPort(redisPort);
@@ -49,12 +168,22 @@ public class RedisConfig {
             redisStandaloneConfiguration.setPassword(redisPassword);
         }
 
+        // The pool is the concurrency limit for Redis: with virtual threads there is no
+        // request-thread cap in front of it, so callers wait at most maxWait for a connection
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(poolMaxActive);
+        poolConfig.setMaxIdle(poolMaxIdle);
+        poolConfig.setMinIdle(poolMinIdle);
+        poolConfig.setBlockWhenExhausted(true);
+        poolConfig.setMaxWait(poolMaxWait);
+
         JedisClientConfiguration.JedisClientConfigurationBuilder jedisClientConfiguration = 
             JedisClientConfiguration.builder();
-        jedisClientConfiguration.connectTimeout(Duration.ofMillis(timeout));
-        jedisClientConfiguration.usePooling();
+        jedisClientConfiguration.connectTimeout(connectTimeout);
+        jedisClientConfiguration.readTimeout(readTimeout);
+        jedisClientConfiguration.usePooling().poolConfig(poolConfig);
 
-        return new JedisConnectionFactory(redisStandaloneConfiguration, 
+        return new MeteredJedisConnectionFactory(redisStandaloneConfiguration,
             jedisClientConfiguration.build());
     }
 
@@ -68,13 +197,8 @@ public class RedisConfig {
         template.setHashKeySerializer(new StringRedisSerializer());
         
         // Use custom JSON serializer that handles LocalDateTime
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
-        objectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
-        objectMapper.registerModule(new JavaTimeModule());
-        objectMapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        
-        GenericJackson2JsonRedisSerializer jackson2JsonRedisSerializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+        GenericJackson2JsonRedisSerializer jackson2JsonRedisSerializer =
+            new GenericJackson2JsonRedisSerializer(redisObjectMapper());
         
         template.setValueSerializer(jackson2JsonRedisSerializer);
         template.setHashValueSerializer(jackson2JsonRedisSerializer);
@@ -85,28 +209,136 @@ public class RedisConfig {
         return template;
     }
 
+    /**
+     * Cache value serializer: User values use the compact binary layout; everything else
+     * (and legacy JSON entries) goes through the typed JSON serializer.
+     */
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
-        // Create custom ObjectMapper for caching
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
-        objectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
-        objectMapper.registerModule(new JavaTimeModule());
-        objectMapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        
-        GenericJackson2JsonRedisSerializer jackson2JsonRedisSerializer = new GenericJackson2JsonRedisSerializer(objectMapper);
-        
+    public UserBinaryRedisSerializer cacheValueSerializer(CountryCatalog countryCatalog) {
+        return new UserBinaryRedisSerializer(
+            new GenericJackson2JsonRedisSerializer(redisObjectMapper()),
+            SERIALIZER_BINARY.equals(cacheSerializer),
+            compressionThreshold,
+            countryCatalog::favoriteSet);
+    }
+
+    /**
+     * Cache entry TTL with jitter, so entries refilled together (e.g. after a flush)
+     * do not all expire together and hit MongoDB in one spike.
+     */
+    @Bean
+    public JitteredTtl cacheEntryTtl() {
+        return new JitteredTtl(cacheTtl, ttlJitter);
+    }
+
+    /**
+     * Trips on Redis errors or latency so cache calls skip Redis (and fall back to MongoDB)
+     * instead of each waiting out the socket timeout.
+     */
+    @Bean
+    public RedisCircuitBreaker redisCircuitBreaker() {
+        return new RedisCircuitBreaker(breakerWindowSize, breakerMinimumCalls, breakerFailureRate,
+            breakerSlowCallRate, Duration.ofMillis(breakerSlowCallMs), Duration.ofMillis(breakerOpenMs),
+            breakerHalfOpenProbes);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public CacheReplayQueue cacheReplayQueue(CacheInvalidationBroadcaster cacheInvalidationBroadcaster,
+                                             RedisCircuitBreaker redisCircuitBreaker) {
+        return new CacheReplayQueue(cacheInvalidationBroadcaster, redisCircuitBreaker, replayMaxKeys,
+            Duration.ofMillis(replayIntervalMs));
+    }
+
+    /**
+     * Per-user tags of the Redis cache entries, so one invalidation removes every entry
+     * derived from a user however it is keyed.
+     */
+    @Bean
+    public CacheTags cacheTags(StringRedisTemplate stringRedisTemplate, RedisCircuitBreaker redisCircuitBreaker,
+                               CacheReplayQueue cacheReplayQueue) {
+        return new CacheTags(stringRedisTemplate, redisCircuitBreaker, cacheReplayQueue, cacheTtl);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public RefreshAhead cacheRefreshAhead(JitteredTtl cacheEntryTtl) {
+        return new RefreshAhead(refreshAheadBeta, Duration.ofMillis(refreshAheadMinDeltaMs),
+            cacheEntryTtl.minimum(), refreshAheadThreads, refreshAheadQueue);
+    }
+
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                     CacheInvalidationBroadcaster cacheInvalidationBroadcaster,
+                                     UserBinaryRedisSerializer cacheValueSerializer,
+                                     JitteredTtl cacheEntryTtl,
+                                     RefreshAhead cacheRefreshAhead,
+                                     RedisCircuitBreaker redisCircuitBreaker,
+                                     CacheReplayQueue cacheReplayQueue,
+                                     CacheTags cacheTags,
+                                     StringRedisTemplate stringRedisTemplate) {
         RedisCacheConfiguration cacheConfiguration = RedisCacheConfiguration
             .defaultCacheConfig()
-            .entryTtl(Duration.ofMinutes(10))
+            .entryTtl(cacheEntryTtl)
             .disableCachingNullValues()
             .serializeKeysWith(
                 RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
             .serializeValuesWith(
-                RedisSerializationContext.SerializationPair.fromSerializer(jackson2JsonRedisSerializer));
+                RedisSerializationContext.SerializationPair.fromSerializer(cacheValueSerializer));
 
-        return RedisCacheManager.builder(redisConnectionFactory)
+        // allEntries evictions walk keys with SCAN batches instead of the default KEYS
+        RedisCacheWriter cacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(
+            redisConnectionFactory, BatchStrategies.scan(clearBatchSize));
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(cacheWriter)
             .cacheDefaults(cacheConfiguration)
+            .initialCacheNames(new LinkedHashSet<>(CacheNames.ALL))
+            .enableStatistics()
             .build();
+
+        // Optional: one node loads a missing entry while the others wait for it in Redis
+        DistributedLoadLock loadLock = loadLockEnabled
+            ? new DistributedLoadLock(stringRedisTemplate, redisCircuitBreaker, Duration.ofMillis(loadLockTtlMs),
+                Duration.ofMillis(loadLockWaitMs), Duration.ofMillis(20))
+            : null;
+
+        // Bounded in-process L1 in front of Redis; writes invalidate L1 on every node via pub/sub.
+        // With L1 disabled the wrapper stays (holding nothing) for load coalescing and refresh-ahead.
+        // Redis calls go through the circuit breaker; skipped writes are replayed as invalidations
+        redisCacheManager.afterPropertiesSet();
+        ResilientCacheManager resilientCacheManager =
+            new ResilientCacheManager(redisCacheManager, redisCircuitBreaker, cacheReplayQueue);
+        return new TwoLevelCacheManager(resilientCacheManager, cacheInvalidationBroadcaster,
+            l1Enabled ? l1MaxSize : 0, l1Enabled ? Duration.ofMillis(l1TtlMs) : Duration.ZERO,
+            cacheRefreshAhead, loadLock, refreshAheadMaxKeys, cacheTags);
+    }
+
+    /**
+     * ObjectMapper for Redis JSON values: field access, embedded type ids and ISO-8601 dates.
+     */
+    public static ObjectMapper redisObjectMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        objectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return objectMapper;
+    }
+
+    @Bean
+    public CacheInvalidationBroadcaster cacheInvalidationBroadcaster(StringRedisTemplate stringRedisTemplate,
+                                                                     RedisCircuitBreaker redisCircuitBreaker) {
+        return new CacheInvalidationBroadcaster(stringRedisTemplate, invalidationChannel, redisCircuitBreaker);
+    }
+
+    // Starts even when Redis is down; the subscription is retried in the background
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+            RedisConnectionFactory redisConnectionFactory,
+            CacheInvalidationBroadcaster cacheInvalidationBroadcaster) {
+        RedisMessageListenerContainer container =
+            new CacheInvalidationListenerContainer(Duration.ofMillis(replayIntervalMs));
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(cacheInvalidationBroadcaster,
+            new ChannelTopic(cacheInvalidationBroadcaster.getChannel()));
+        return container;
     }
 }
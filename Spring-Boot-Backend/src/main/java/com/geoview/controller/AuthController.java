@@ -1,109 +1,208 @@
 package com.geoview.controller;
 
+import com.geoview.country.CountryCatalog;
 import com.geoview.dto.*;
 import com.geoview.model.User;
 import com.geoview.repository.UserRepository;
 import com.geoview.security.JwtUtils;
+import com.geoview.service.AccountAvailabilityService;
+import com.geoview.service.HashingCapacityExceededException;
+import com.geoview.service.PasswordHashingService;
+import com.geoview.service.UserService;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @CrossOrigin(origins = {"http://localhost:5173", "http://127.0.0.1:5173"}, allowCredentials = "true")
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/auth")
 public class AuthController {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthController.class);
+    
+    private static final long TOKEN_COOKIE_MAX_AGE = 7 * 24 * 60 * 60; // 7 days
     
     @Autowired
     UserRepository userRepository;
     
     @Autowired
-    PasswordEncoder encoder;
+    PasswordHashingService passwordHashingService;
+    
+    @Autowired
+    UserService userService;
+    
+    @Autowired
+    AccountAvailabilityService accountAvailabilityService;
+    
+    @Autowired
+    CountryCatalog countryCatalog;
+    
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    Executor taskExecutor;
     
     @Autowired
     JwtUtils jwtUtils;
     
     @PostMapping("/register")
-    public ResponseEntity<?> registerUser(@Valid @RequestBody SignUpRequest signUpRequest,
-                                        HttpServletResponse response) {
-        
-        System.out.println("Registering user: " + signUpRequest.getUsername());
-        
-        if (userRepository.existsByUsername(signUpRequest.getUsername())) {
+    public CompletableFuture<ResponseEntity<?>> registerUser(@Valid @RequestBody SignUpRequest signUpRequest) {
+        
+        log.debug("Registering user: {}", signUpRequest.getUsername());
+        
+        // Hash on the bounded hashing pool, then insert and respond off the hashing threads.
+        // The unique indexes on username and email decide duplicates in the same round trip.
+        return passwordHashingService.encode(signUpRequest.getPassword())
+                .thenApplyAsync(hash -> {
+                    User user = new User(signUpRequest.getUsername(), signUpRequest.getEmail(), hash);
+                    // Stamped with the catalog so the first favorite update needs no migration
+                    user.setFavorites(countryCatalog.favoriteSet(List.of()));
+                    try {
+                        userRepository.insert(user);
+                    } catch (DuplicateKeyException e) {
+                        String field = AccountAvailabilityService.duplicateField(e);
+                        accountAvailabilityService.recordTaken(
+                                AccountAvailabilityService.FIELD_USERNAME.equals(field) ? user.getUsername() : null,
+                                AccountAvailabilityService.FIELD_EMAIL.equals(field) ? user.getEmail() : null);
+                        return ResponseEntity.badRequest()
+                                .body(createErrorResponse(AccountAvailabilityService.FIELD_EMAIL.equals(field)
+                                        ? "User with this email already exists"
+                                        : "User with this username already exists"));
+                    }
+                    accountAvailabilityService.recordTaken(user.getUsername(), user.getEmail());
+                    
+                    String jwt = jwtUtils.generateJwtToken(user);
+                    
+                    return ResponseEntity.ok()
+                            .header(HttpHeaders.SET_COOKIE, tokenCookie(jwt, TOKEN_COOKIE_MAX_AGE).toString())
+                            .body(createSuccessResponse(
+                                    "User registered successfully",
+                                    jwt,
+                                    user.getId(),
+                                    user.getUsername(),
+                                    user.getEmail()
+                            ));
+                }, taskExecutor);
+    }
+    
+    /**
+     * Sign-up form check; most answers come from the in-memory filters without a database query.
+     * Availability is a hint, registration still decides on insert.
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<?> checkAvailability(@RequestParam(required = false) String username,
+                                               @RequestParam(required = false) String email) {
+        if ((username == null || username.isBlank()) && (email == null || email.isBlank())) {
             return ResponseEntity.badRequest()
-                    .body(createErrorResponse("User with this username already exists"));
+                    .body(createErrorResponse("Provide a username or email to check"));
         }
         
-        if (userRepository.existsByEmail(signUpRequest.getEmail())) {
-            return ResponseEntity.badRequest()
-                    .body(createErrorResponse("User with this email already exists"));
+        Map<String, Object> responseMap = new HashMap<>();
+        responseMap.put("success", true);
+        if (username != null && !username.isBlank()) {
+            responseMap.put("usernameAvailable", accountAvailabilityService.isUsernameAvailable(username));
         }
-        
-        // Create new user
-        User user = new User(signUpRequest.getUsername(),
-                           signUpRequest.getEmail(),
-                           signUpRequest.getPassword());
-        
-        // Hash password before saving (like Node.js pre-save hook)
-        user.hashPassword();
-        
-        userRepository.save(user);
-        
-        // Generate JWT token
-        String jwt = jwtUtils.generateJwtToken(user.getId());
-        
-        // Set cookie
-        Cookie cookie = new Cookie("token", jwt);
-        cookie.setHttpOnly(true);
-        cookie.setMaxAge(7 * 24 * 60 * 60); // 7 days
-        cookie.setPath("/");
-        response.addCookie(cookie);
-        
-        return ResponseEntity.ok(createSuccessResponse(
-                "User registered successfully",
-                jwt,
-                user.getId(),
-                user.getUsername(),
-                user.getEmail()
-        ));
+        if (email != null && !email.isBlank()) {
+            responseMap.put("emailAvailable", accountAvailabilityService.isEmailAvailable(email));
+        }
+        return ResponseEntity.ok(responseMap);
     }
     
     @PostMapping("/login")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest,
-                                            HttpServletResponse response) {
+    public CompletableFuture<ResponseEntity<?>> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
         
-        System.out.println("Login attempt: " + loginRequest.getEmail());
+        log.debug("Login attempt: {}", loginRequest.getEmail());
         
-        User user = userRepository.findByEmail(loginRequest.getEmail())
+        // Credentials only: favorites and the rest of the document are not needed to log in
+        User user = userRepository.findCredentialsByEmail(loginRequest.getEmail())
                 .orElse(null);
         
-        if (user == null || !user.comparePassword(loginRequest.getPassword())) {
-            return ResponseEntity.badRequest()
-                    .body(createErrorResponse("Invalid email or password"));
+        if (user == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(createErrorResponse("Invalid email or password")));
         }
         
-        String jwt = jwtUtils.generateJwtToken(user.getId());
-        
-        // Set cookie
-        Cookie cookie = new Cookie("token", jwt);
-        cookie.setHttpOnly(true);
-        cookie.setMaxAge(7 * 24 * 60 * 60); // 7 days
-        cookie.setPath("/");
-        response.addCookie(cookie);
-        
-        return ResponseEntity.ok(createSuccessResponse(
-                "Login successful",
-                jwt,
-                user.getId(),
-                user.getUsername(),
-                user.getEmail()
-        ));
+        return passwordHashingService.matches(loginRequest.getPassword(), user.getPassword())
+                .thenApplyAsync(matches -> {
+                    if (!matches) {
+                        return ResponseEntity.badRequest()
+                                .body(createErrorResponse("Invalid email or password"));
+                    }
+                    
+                    if (passwordHashingService.needsRehash(user.getPassword())) {
+                        upgradePasswordHash(user, loginRequest.getPassword());
+                    }
+                    
+                    String jwt = jwtUtils.generateJwtToken(user);
+                    
+                    return ResponseEntity.ok()
+                            .header(HttpHeaders.SET_COOKIE, tokenCookie(jwt, TOKEN_COOKIE_MAX_AGE).toString())
+                            .body(createSuccessResponse(
+                                    "Login successful",
+                                    jwt,
+                                    user.getId(),
+                                    user.getUsername(),
+                                    user.getEmail()
+                            ));
+                }, taskExecutor);
+    }
+    
+    /**
+     * Re-hash with the configured bcrypt cost in the background; the login response does not wait.
+     * Skipped when the hashing pool is saturated, it will be retried on a later login.
+     */
+    private void upgradePasswordHash(User user, String rawPassword) {
+        String currentHash = user.getPassword();
+        try {
+            passwordHashingService.encode(rawPassword)
+                    .thenAcceptAsync(newHash -> userService.upgradePasswordHash(user.getId(), currentHash, newHash),
+                            taskExecutor)
+                    .exceptionally(e -> {
+                        log.warn("Password hash upgrade failed for userId {}: {}", user.getId(), e.getMessage());
+                        return null;
+                    });
+        } catch (HashingCapacityExceededException e) {
+            log.debug("Skipping password hash upgrade, hashing pool is full");
+        }
+    }
+    
+    @ExceptionHandler(HashingCapacityExceededException.class)
+    public ResponseEntity<?> handleHashingCapacityExceeded(HashingCapacityExceededException e) {
+        return tooManyRequests(e.getRetryAfterSeconds());
+    }
+    
+    /**
+     * The task executor that runs the insert/lookup after hashing is bounded too
+     * (spring.task.execution.pool.*); a full one is the same overload as a full hashing pool.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<?> handleTaskExecutorFull(RejectedExecutionException e) {
+        log.debug("Task executor full, rejecting authentication request");
+        return tooManyRequests(passwordHashingService.getRetryAfterSeconds());
+    }
+    
+    private ResponseEntity<?> tooManyRequests(long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(createErrorResponse("Too many authentication requests, please retry shortly"));
     }
     
     @PostMapping("/logout")
@@ -121,6 +220,15 @@ public class AuthController {
         return ResponseEntity.ok(responseMap);
     }
     
+    // Set as a header on the ResponseEntity: the servlet response may be committed by another thread
+    private ResponseCookie tokenCookie(String jwt, long maxAge) {
+        return ResponseCookie.from("token", jwt)
+                .httpOnly(true)
+                .maxAge(maxAge)
+                .path("/")
+                .build();
+    }
+    
     private Map<String, Object> createSuccessResponse(String message, String token, String id, String username, String email) {
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
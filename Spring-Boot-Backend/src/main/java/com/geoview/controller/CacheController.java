@@ -1,21 +1,46 @@
 package com.geoview.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.geoview.cache.CacheAdminService;
+import com.geoview.cache.RedisKeyScanner;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.Map;
 
 @CrossOrigin(origins = {"http://localhost:5173", "http://127.0.0.1:5173"}, allowCredentials = "true")
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/cache")
 public class CacheController {
 
+    private static final int MAX_KEYS_PAGE = 10000;
+
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private RedisKeyScanner redisKeyScanner;
+
+    @Autowired
+    private CacheAdminService cacheAdminService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${geoview.cache.statsScanBudget:10000}")
+    private int statsScanBudget;
+
     /**
      * Check Redis connection health
      */
@@ -52,19 +77,33 @@ public class CacheController {
 
     /**
      * Get cache statistics
+     * Reports per-cache entry counts, hit/miss/eviction counters for the Redis and
+     * in-process tiers, and memory usage. Entry counts come from one bounded SCAN pass;
+     * when the pass does not cover the whole keyspace they are extrapolated from DBSIZE
      */
     @GetMapping("/stats")
-    public ResponseEntity<?> getCacheStats() {
+    public ResponseEntity<?> getCacheStats(@RequestParam(defaultValue = "0") int count) {
         Map<String, Object> response = new HashMap<>();
         try {
-            // Get approximate key count
-            Long keyCount = redisTemplate.getConnectionFactory()
-                .getConnection()
-                .dbSize();
+            Long keyCount = redisKeyScanner.dbSize();
+            RedisKeyScanner.KeySample sample = redisKeyScanner.sampleCacheKeys(count, statsScanBudget);
+
+            Map<String, Object> caches = new HashMap<>();
+            for (String cacheName : cacheAdminService.getCacheNames()) {
+                long keys = sample.getKeysPerCache().getOrDefault(cacheName, 0L);
+                if (!sample.isComplete() && keyCount != null && sample.getKeysScanned() > 0) {
+                    keys = Math.round((double) keys * keyCount / sample.getKeysScanned());
+                }
+                caches.put(cacheName, cacheAdminService.getCacheStatistics(cacheName, keys));
+            }
             
             response.put("success", true);
             response.put("totalKeys", keyCount);
             response.put("cacheType", "Redis");
+            response.put("caches", caches);
+            response.put("memory", cacheAdminService.getMemoryInfo());
+            response.put("keysScanned", sample.getKeysScanned());
+            response.put("exact", sample.isComplete());
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -75,18 +114,21 @@ public class CacheController {
     }
 
     /**
-     * Clear all caches (admin only - add proper authorization in production)
+     * Clear all application caches, one cache at a time (admin only - add proper authorization in production)
+     * Keys are removed with SCAN + UNLINK batches; unrelated keys in the database are left alone
      */
     @DeleteMapping("/clear")
     public ResponseEntity<?> clearAllCaches() {
         Map<String, Object> response = new HashMap<>();
         try {
-            redisTemplate.getConnectionFactory()
-                .getConnection()
-                .flushDb();
+            Map<String, Object> removed = new HashMap<>();
+            for (String cacheName : cacheAdminService.getCacheNames()) {
+                removed.put(cacheName, cacheAdminService.clearCache(cacheName));
+            }
             
             response.put("success", true);
             response.put("message", "All caches cleared successfully");
+            response.put("removedKeys", removed);
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -97,24 +139,89 @@ public class CacheController {
     }
 
     /**
-     * Get cache keys by pattern
+     * Clear a single cache (admin only - add proper authorization in production)
      */
-    @GetMapping("/keys")
-    public ResponseEntity<?> getCacheKeys(@RequestParam(defaultValue = "*") String pattern) {
+    @DeleteMapping("/clear/{cacheName}")
+    public ResponseEntity<?> clearCache(@PathVariable String cacheName) {
         Map<String, Object> response = new HashMap<>();
+        if (!cacheAdminService.hasCache(cacheName)) {
+            response.put("success", false);
+            response.put("message", "Unknown cache: " + cacheName);
+            return ResponseEntity.status(404).body(response);
+        }
         try {
-            var keys = redisTemplate.keys(pattern);
+            long removed = cacheAdminService.clearCache(cacheName);
             
             response.put("success", true);
-            response.put("pattern", pattern);
-            response.put("keys", keys);
-            response.put("count", keys != null ? keys.size() : 0);
+            response.put("message", "Cache " + cacheName + " cleared successfully");
+            response.put("removedKeys", removed);
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             response.put("success", false);
-            response.put("message", "Failed to get cache keys: " + e.getMessage());
+            response.put("message", "Failed to clear cache " + cacheName + ": " + e.getMessage());
             return ResponseEntity.status(500).body(response);
         }
     }
+
+    /**
+     * Get cache keys by pattern
+     * Uses SCAN with a COUNT hint instead of KEYS and streams keys as each batch arrives.
+     * A page ends after {@code limit} keys or a capped number of SCAN calls, so a sparse
+     * pattern can return few or no keys with a non-zero cursor.
+     * Pass the returned cursor back to fetch the next page; a cursor of "0" means the scan is complete
+     */
+    @GetMapping("/keys")
+    public ResponseEntity<StreamingResponseBody> getCacheKeys(
+            @RequestParam(defaultValue = "*") String pattern,
+            @RequestParam(defaultValue = RedisKeyScanner.START_CURSOR) String cursor,
+            @RequestParam(defaultValue = "0") int count,
+            @RequestParam(defaultValue = "1000") int limit) {
+        int pageLimit = Math.max(1, Math.min(limit, MAX_KEYS_PAGE));
+        
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(outputStream)) {
+                json.writeStartObject();
+                json.writeStringField("pattern", pattern);
+                json.writeArrayFieldStart("keys");
+                
+                long[] written = {0};
+                String nextCursor;
+                try {
+                    nextCursor = redisKeyScanner.scan(cursor, pattern, count, pageLimit, batch -> {
+                        try {
+                            for (String key : batch) {
+                                json.writeString(key);
+                            }
+                            json.flush();
+                            written[0] += batch.size();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                } catch (Exception e) {
+                    // Status is already committed; report the failure in the trailer fields
+                    json.writeEndArray();
+                    json.writeBooleanField("success", false);
+                    json.writeStringField("message", "Failed to get cache keys: " + e.getMessage());
+                    json.writeNumberField("count", written[0]);
+                    json.writeEndObject();
+                    return;
+                }
+                
+                json.writeEndArray();
+                json.writeBooleanField("success", true);
+                json.writeNumberField("count", written[0]);
+                json.writeStringField("cursor", nextCursor);
+                json.writeBooleanField("complete", RedisKeyScanner.START_CURSOR.equals(nextCursor));
+                json.writeEndObject();
+            }
+        };
+        
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(body);
+    }
 }
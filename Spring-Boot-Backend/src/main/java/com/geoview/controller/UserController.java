@@ -1,16 +1,33 @@
 package com.geoview.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.geoview.cache.ResponseBodyCache;
+import com.geoview.country.CountryCatalog;
 import com.geoview.dto.AddFavoriteRequest;
 import com.geoview.model.FavoriteCountry;
 import com.geoview.model.User;
-import com.geoview.repository.UserRepository;
+import com.geoview.model.UserFavorites;
+import com.geoview.model.UserProfile;
+import com.geoview.model.UserView;
+import com.geoview.security.JwtUtils;
 import com.geoview.security.UserPrincipal;
+import com.geoview.service.FavoriteUpdateResult;
+import com.geoview.service.UserDetailsServiceImpl;
 import com.geoview.service.UserService;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -18,42 +35,62 @@ import java.util.Optional;
 
 @CrossOrigin(origins = {"http://localhost:5173", "http://127.0.0.1:5173"}, allowCredentials = "true")
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/user")
 public class UserController {
+
+    private static final Logger log = LoggerFactory.getLogger(UserController.class);
     
-    @Autowired
-    private UserRepository userRepository;
+    // Browsers keep the body but revalidate it (conditional GET) on every use
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
     
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private ResponseBodyCache responseBodyCache;
+    
+    @Autowired
+    private CountryCatalog countryCatalog;
+    
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+    
+    @Autowired
+    private JwtUtils jwtUtils;
+    
     @GetMapping("/profile")
-    public ResponseEntity<?> getUserProfile(Authentication authentication) {
+    public ResponseEntity<?> getUserProfile(Authentication authentication, WebRequest webRequest) {
         try {
             UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-            // Use cached service method
-            Optional<User> userOptional = userService.getUserById(userPrincipal.getId());
+            ResponseEntity<?> cached = cachedResponse(userPrincipal.getId(), ResponseBodyCache.PROFILE, webRequest);
+            if (cached != null) {
+                return cached;
+            }
             
-            if (userOptional.isEmpty()) {
+            // Use cached service method (profile projection, no credentials)
+            Optional<UserProfile> profileOptional = userService.getUserProfile(userPrincipal.getId());
+            
+            if (profileOptional.isEmpty()) {
                 return ResponseEntity.status(404).body(createErrorResponse("User not found"));
             }
             
-            User user = userOptional.get();
+            UserProfile profile = profileOptional.get();
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             
             Map<String, Object> userInfo = new HashMap<>();
-            userInfo.put("id", user.getId());
-            userInfo.put("username", user.getUsername());
-            userInfo.put("email", user.getEmail());
-            userInfo.put("favoriteCountries", user.getFavoriteCountries());
-            userInfo.put("createdAt", user.getCreatedAt());
+            userInfo.put("id", profile.getId());
+            userInfo.put("username", profile.getUsername());
+            userInfo.put("email", profile.getEmail());
+            userInfo.put("favoriteCountries", countryCatalog.resolve(profile.getFavorites()));
+            userInfo.put("createdAt", profile.getCreatedAt());
             response.put("user", userInfo);
             
-            return ResponseEntity.ok(response);
+            return jsonResponse(profile, ResponseBodyCache.PROFILE, response);
         } catch (Exception e) {
-            System.err.println(e.getMessage());
+            log.error("Request failed", e);
             return ResponseEntity.status(500).body(createErrorResponse("Server error: " + e.getMessage()));
         }
     }
@@ -63,43 +100,36 @@ public class UserController {
                                               Authentication authentication) {
         try {
             UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-            Optional<User> userOptional = userService.getUserById(userPrincipal.getId());
-            
-            if (userOptional.isEmpty()) {
-                return ResponseEntity.status(404).body(createErrorResponse("User not found"));
-            }
             
-            User user = userOptional.get();
-            
-            // Check if country already exists in favorites
-            boolean exists = user.getFavoriteCountries().stream()
-                    .anyMatch(country -> country.getCountryCode().equals(request.getCountryCode()));
-            
-            if (exists) {
-                return ResponseEntity.status(400).body(createErrorResponse("Country already in favorites"));
-            }
-            
-            // Add country to favorites using service (will evict cache)
             FavoriteCountry favoriteCountry = new FavoriteCountry(
                     request.getCountryCode(),
                     request.getCountryName(),
                     request.getFlagUrl()
             );
             
-            User updatedUser = userService.addFavoriteCountry(userPrincipal.getId(), favoriteCountry);
+            // Atomic add-if-absent in one database operation (will evict cache)
+            FavoriteUpdateResult result = userService.addFavoriteCountry(userPrincipal.getId(), favoriteCountry);
+            
+            if (result.getStatus() == FavoriteUpdateResult.Status.USER_NOT_FOUND) {
+                return ResponseEntity.status(404).body(createErrorResponse("User not found"));
+            }
+            
+            if (result.getStatus() == FavoriteUpdateResult.Status.UNKNOWN_COUNTRY) {
+                return ResponseEntity.status(400).body(createErrorResponse("Unknown country code"));
+            }
             
-            if (updatedUser == null) {
-                return ResponseEntity.status(500).body(createErrorResponse("Failed to add favorite"));
+            if (result.getStatus() == FavoriteUpdateResult.Status.ALREADY_EXISTS) {
+                return ResponseEntity.status(400).body(createErrorResponse("Country already in favorites"));
             }
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Country added to favorites");
-            response.put("favoriteCountries", updatedUser.getFavoriteCountries());
+            response.put("favoriteCountries", result.getFavoriteCountries());
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
-            System.err.println(e.getMessage());
+            log.error("Request failed", e);
             return ResponseEntity.status(500).body(createErrorResponse("Server error: " + e.getMessage()));
         }
     }
@@ -110,60 +140,70 @@ public class UserController {
         try {
             UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
             
-            // Use service method to remove favorite (will evict cache)
-            User updatedUser = userService.removeFavoriteCountry(userPrincipal.getId(), countryCode);
+            // Atomic $pull in one database operation (will evict cache)
+            FavoriteUpdateResult result = userService.removeFavoriteCountry(userPrincipal.getId(), countryCode);
             
-            if (updatedUser == null) {
+            if (result.getStatus() == FavoriteUpdateResult.Status.USER_NOT_FOUND) {
                 return ResponseEntity.status(404).body(createErrorResponse("User not found"));
             }
             
+            if (result.getStatus() == FavoriteUpdateResult.Status.UNKNOWN_COUNTRY) {
+                return ResponseEntity.status(400).body(createErrorResponse("Unknown country code"));
+            }
+            
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Country removed from favorites");
-            response.put("favoriteCountries", updatedUser.getFavoriteCountries());
+            response.put("favoriteCountries", result.getFavoriteCountries());
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
-            System.err.println(e.getMessage());
+            log.error("Request failed", e);
             return ResponseEntity.status(500).body(createErrorResponse("Server error: " + e.getMessage()));
         }
     }
     
     @GetMapping("/getall/favorite")
-    public ResponseEntity<?> getFavoriteCountries(Authentication authentication) {
+    public ResponseEntity<?> getFavoriteCountries(Authentication authentication, WebRequest webRequest) {
         try {
             UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-            System.out.println("getFavoriteCountries called with user.id: " + userPrincipal.getId());
+            log.debug("getFavoriteCountries called with user.id: {}", userPrincipal.getId());
+            ResponseEntity<?> cached = cachedResponse(userPrincipal.getId(), ResponseBodyCache.FAVORITES, webRequest);
+            if (cached != null) {
+                return cached;
+            }
             
-            // Use cached service method
-            Optional<User> userOptional = userService.getUserById(userPrincipal.getId());
+            // Use cached service method (favorites projection only)
+            Optional<UserFavorites> favoritesOptional = userService.getFavorites(userPrincipal.getId());
             
-            if (userOptional.isEmpty()) {
+            if (favoritesOptional.isEmpty()) {
                 return ResponseEntity.status(404).body(createErrorResponse("User not found"));
             }
             
-            User user = userOptional.get();
-            System.out.println("User found: " + user.getUsername());
+            UserFavorites favorites = favoritesOptional.get();
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("favoriteCountries", user.getFavoriteCountries());
+            response.put("favoriteCountries", countryCatalog.resolve(favorites.getFavorites()));
             
-            return ResponseEntity.ok(response);
+            return jsonResponse(favorites, ResponseBodyCache.FAVORITES, response);
         } catch (Exception e) {
-            System.err.println(e.getMessage());
+            log.error("Request failed", e);
             return ResponseEntity.status(500).body(createErrorResponse("Server error: " + e.getMessage()));
         }
     }
     
     @PutMapping("/profile")
     public ResponseEntity<?> updateUserProfile(@RequestBody Map<String, String> updateRequest,
-                                             Authentication authentication) {
+                                             Authentication authentication,
+                                             HttpServletResponse httpResponse) {
         try {
             UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-            System.out.println("updateUserProfile called with: " + updateRequest);
+            log.debug("updateUserProfile called with: {}", updateRequest);
             
-            Optional<User> userOptional = userRepository.findById(userPrincipal.getId());
+            // Atomic update that bumps the version (will evict cache)
+            Optional<User> userOptional = userService.updateProfile(userPrincipal.getId(),
+                    updateRequest.get("username"), updateRequest.get("email"));
             
             if (userOptional.isEmpty()) {
                 return ResponseEntity.status(404).body(createErrorResponse("User not found"));
@@ -171,35 +211,77 @@ public class UserController {
             
             User user = userOptional.get();
             
-            if (updateRequest.containsKey("username")) {
-                user.setUsername(updateRequest.get("username"));
-            }
-            
-            if (updateRequest.containsKey("email")) {
-                user.setEmail(updateRequest.get("email"));
-            }
-            
-            userRepository.save(user);
-            
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Profile updated successfully");
             
+            // Token-sourced principals carry username/email, so reissue the token with the new values
+            if (userDetailsService.isTokenPrincipalSource()) {
+                String jwt = jwtUtils.generateJwtToken(user);
+                Cookie cookie = new Cookie("token", jwt);
+                cookie.setHttpOnly(true);
+                cookie.setMaxAge(7 * 24 * 60 * 60); // 7 days
+                cookie.setPath("/");
+                httpResponse.addCookie(cookie);
+                response.put("token", jwt);
+            }
+            
             Map<String, Object> userInfo = new HashMap<>();
             userInfo.put("id", user.getId());
             userInfo.put("username", user.getUsername());
             userInfo.put("email", user.getEmail());
-            userInfo.put("favoriteCountries", user.getFavoriteCountries());
+            userInfo.put("favoriteCountries", countryCatalog.resolve(user.getFavorites()));
             userInfo.put("createdAt", user.getCreatedAt());
             response.put("user", userInfo);
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
-            System.err.println(e.getMessage());
+            log.error("Request failed", e);
             return ResponseEntity.status(500).body(createErrorResponse("Server error: " + e.getMessage()));
         }
     }
     
+    /**
+     * Answers from the cached document version alone, before the user is loaded: 304 when
+     * the client's copy is current, otherwise the pre-serialized body when one exists for
+     * this version. Returns null when the response has to be built.
+     */
+    private ResponseEntity<?> cachedResponse(String userId, String kind, WebRequest webRequest) {
+        Long version = userService.getUserVersion(userId);
+        if (version == null) {
+            return null;
+        }
+        // Sets the 304 status and the ETag header when the client's copy is current
+        if (webRequest.checkNotModified(eTag(userId, version))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).build();
+        }
+        byte[] body = responseBodyCache.get(userId, kind, version);
+        return body != null ? jsonBytes(eTag(userId, version), body) : null;
+    }
+    
+    private ResponseEntity<byte[]> jsonResponse(UserView user, String kind, Map<String, Object> response)
+            throws JsonProcessingException {
+        byte[] body = responseBodyCache.put(user.getId(), kind, user.getVersion(), response);
+        return jsonBytes(eTag(user), body);
+    }
+    
+    // byte[] bodies are copied to the output stream as-is by the byte array converter
+    private static ResponseEntity<byte[]> jsonBytes(String eTag, byte[] body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(eTag)
+                .cacheControl(REVALIDATE)
+                .body(body);
+    }
+    
+    private static String eTag(UserView user) {
+        return eTag(user.getId(), user.getVersion());
+    }
+    
+    private static String eTag(String userId, long version) {
+        return "\"" + userId + "-" + version + "\"";
+    }
+    
     private Map<String, Object> createErrorResponse(String message) {
         Map<String, Object> response = new HashMap<>();
         response.put("success", false);
@@ -0,0 +1,119 @@
+package com.geoview.country;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable catalog entry. Serializes in the same shape as restcountries.com
+ * (name.common, flags.png/svg, capital[]), so the frontend can switch over
+ * without remapping fields.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"cca2", "cca3", "name", "altSpellings", "region", "subregion", "capital", "flags"})
+public final class Country {
+
+    private static final String FLAG_BASE_URL = "https://flagcdn.com/";
+
+    private final int index;
+    private final String cca2;
+    private final String cca3;
+    private final Name name;
+    private final List<String> altSpellings;
+    private final String region;
+    private final String subregion;
+    private final List<String> capital;
+    private final Flags flags;
+
+    Country(int index, String cca2, String cca3, String commonName, List<String> altSpellings,
+            String region, String subregion, List<String> capital) {
+        this.index = index;
+        this.cca2 = cca2;
+        this.cca3 = cca3;
+        this.name = new Name(commonName);
+        this.altSpellings = List.copyOf(altSpellings);
+        this.region = region;
+        this.subregion = subregion;
+        this.capital = List.copyOf(capital);
+        String lower = cca2.toLowerCase(Locale.ROOT);
+        this.flags = new Flags(FLAG_BASE_URL + "w320/" + lower + ".png", FLAG_BASE_URL + lower + ".svg");
+    }
+
+    /**
+     * Stable position of this country in the catalog (ordered by cca2).
+     */
+    @JsonIgnore
+    public int getIndex() {
+        return index;
+    }
+
+    public String getCca2() {
+        return cca2;
+    }
+
+    public String getCca3() {
+        return cca3;
+    }
+
+    public Name getName() {
+        return name;
+    }
+
+    @JsonIgnore
+    public String getCommonName() {
+        return name.getCommon();
+    }
+
+    public List<String> getAltSpellings() {
+        return altSpellings;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public String getSubregion() {
+        return subregion;
+    }
+
+    public List<String> getCapital() {
+        return capital;
+    }
+
+    public Flags getFlags() {
+        return flags;
+    }
+
+    public static final class Name {
+        private final String common;
+
+        Name(String common) {
+            this.common = common;
+        }
+
+        public String getCommon() {
+            return common;
+        }
+    }
+
+    public static final class Flags {
+        private final String png;
+        private final String svg;
+
+        Flags(String png, String svg) {
+            this.png = png;
+            this.svg = svg;
+        }
+
+        public String getPng() {
+            return png;
+        }
+
+        public String getSvg() {
+            return svg;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.geoview.country;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.geoview.model.FavoriteCountry;
+import com.geoview.model.FavoriteCountrySet;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory country catalog loaded once at startup from the bundled dataset.
+ * All structures are immutable after load, so lookups are lock-free.
+ *
+ * Also the shared country table behind {@link FavoriteCountrySet}: favorites are
+ * stored as bits over the catalog index and resolved to names and flags here.
+ */
+@Component
+public class CountryCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(CountryCatalog.class);
+
+    @Value("${geoview.countries.dataset:classpath:countries/countries.json}")
+    private Resource dataset;
+
+    /** Entries in catalog index order (cca2). */
+    private Country[] countries;
+
+    /** The same entries ordered by common name, as served by {@link #all()}. */
+    private List<Country> byName;
+
+    /** cca2 and cca3 codes (upper case) to entry. */
+    private Map<String, Country> byCode;
+
+    /** Lower-case region name to entries ordered by common name. */
+    private Map<String, List<Country>> byRegion;
+
+    /** Hash of the cca2 codes in index order; changes whenever an index would. */
+    private int fingerprint;
+
+    @PostConstruct
+    void load() throws IOException {
+        JsonNode root;
+        try (InputStream in = dataset.getInputStream()) {
+            root = new ObjectMapper().readTree(in);
+        }
+
+        List<JsonNode> entries = new ArrayList<>();
+        root.forEach(entries::add);
+        entries.sort(Comparator.comparing(node -> node.path("cca2").asText()));
+
+        if (entries.size() > FavoriteCountrySet.CAPACITY) {
+            throw new IllegalStateException("Country catalog has " + entries.size()
+                + " entries, favorites bitmaps hold " + FavoriteCountrySet.CAPACITY);
+        }
+
+        Country[] loaded = new Country[entries.size()];
+        Map<String, Country> codes = new HashMap<>(loaded.length * 4);
+        for (int i = 0; i < loaded.length; i++) {
+            JsonNode node = entries.get(i);
+            Country country = new Country(
+                i,
+                node.path("cca2").asText(),
+                node.path("cca3").asText(),
+                node.path("name").asText(),
+                textList(node.path("altSpellings")),
+                node.path("region").asText(null),
+                node.path("subregion").asText(null),
+                textList(node.path("capital")));
+            loaded[i] = country;
+            codes.put(country.getCca2(), country);
+            codes.put(country.getCca3(), country);
+        }
+
+        Country[] sortedByName = loaded.clone();
+        Arrays.sort(sortedByName, Comparator.comparing(Country::getCommonName));
+
+        Map<String, List<Country>> regions = new LinkedHashMap<>();
+        for (Country country : sortedByName) {
+            if (country.getRegion() != null) {
+                regions.computeIfAbsent(country.getRegion().toLowerCase(Locale.ROOT), r -> new ArrayList<>())
+                    .add(country);
+            }
+        }
+        regions.replaceAll((region, list) -> List.copyOf(list));
+
+        this.countries = loaded;
+        this.byName = List.of(sortedByName);
+        this.byCode = Map.copyOf(codes);
+        this.byRegion = Map.copyOf(regions);
+        this.fingerprint = Arrays.stream(loaded).map(Country::getCca2).toList().hashCode();
+    }
+
+    public List<Country> all() {
+        return byName;
+    }
+
+    /**
+     * Look up by ISO 3166-1 alpha-2 or alpha-3 code, case-insensitively.
+     */
+    public Optional<Country> findByCode(String code) {
+        if (code == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(byCode.get(code.toUpperCase(Locale.ROOT)));
+    }
+
+    public List<Country> findByRegion(String region) {
+        if (region == null) {
+            return Collections.emptyList();
+        }
+        return byRegion.getOrDefault(region.toLowerCase(Locale.ROOT), Collections.emptyList());
+    }
+
+    /**
+     * Entry at the given catalog index (see {@link Country#getIndex()}).
+     */
+    public Country get(int index) {
+        return countries[index];
+    }
+
+    public int size() {
+        return countries.length;
+    }
+
+    /**
+     * Identifies the index layout; stored with every favorites bitmap so bitmaps
+     * computed against another catalog can be recognised and rebuilt.
+     */
+    public int fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Build a favorites bitmap against this catalog from alpha-2 or alpha-3 codes in
+     * insertion order. Duplicates are dropped. Codes not in the catalog get no bit but
+     * are kept, since the codes are the source of truth: they resolve again once a
+     * catalog knows them.
+     */
+    public FavoriteCountrySet favoriteSet(Collection<String> codes) {
+        long[] bits = new long[FavoriteCountrySet.WORDS];
+        List<String> ordered = new ArrayList<>(codes.size());
+        for (String code : codes) {
+            if (code == null || code.isBlank()) {
+                continue;
+            }
+            String normalized = code.toUpperCase(Locale.ROOT);
+            Country country = byCode.get(normalized);
+            if (country == null) {
+                if (!ordered.contains(normalized)) {
+                    log.info("Keeping favorite {} that is not in the country catalog", normalized);
+                    ordered.add(normalized);
+                }
+                continue;
+            }
+            int index = country.getIndex();
+            int word = FavoriteCountrySet.word(index);
+            if ((bits[word] & FavoriteCountrySet.mask(index)) == 0) {
+                bits[word] |= FavoriteCountrySet.mask(index);
+                ordered.add(country.getCca2());
+            }
+        }
+        return new FavoriteCountrySet(bits, ordered, fingerprint);
+    }
+
+    /**
+     * Names and flags of the favorites, in insertion order, as returned by the API.
+     * Codes no longer in the catalog are skipped.
+     */
+    public List<FavoriteCountry> resolve(FavoriteCountrySet favorites) {
+        if (favorites == null) {
+            return Collections.emptyList();
+        }
+        List<FavoriteCountry> resolved = new ArrayList<>(favorites.size());
+        for (String code : favorites.getCodes()) {
+            Country country = byCode.get(code);
+            if (country != null) {
+                resolved.add(new FavoriteCountry(country.getCca2(), country.getCommonName(), country.getFlags().getPng()));
+            }
+        }
+        return resolved;
+    }
+
+    private static List<String> textList(JsonNode node) {
+        if (!node.isArray()) {
+            return Collections.emptyList();
+        }
+        List<String> values = new ArrayList<>(node.size());
+        node.forEach(value -> values.add(value.asText()));
+        return values;
+    }
+}
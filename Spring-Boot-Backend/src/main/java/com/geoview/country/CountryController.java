@@ -0,0 +1,73 @@
+package com.geoview.country;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@CrossOrigin(origins = {"http://localhost:5173", "http://127.0.0.1:5173"}, allowCredentials = "true")
+@RestController
+@RequestMapping("/api/countries")
+public class CountryController {
+
+    // The dataset only changes with a deploy, so let browsers and proxies reuse responses
+    private static final CacheControl CATALOG_CACHE_CONTROL = CacheControl.maxAge(1, TimeUnit.HOURS).cachePublic();
+
+    @Autowired
+    private CountryCatalog countryCatalog;
+
+    @Autowired
+    private CountrySearchIndex countrySearchIndex;
+
+    @GetMapping
+    public ResponseEntity<List<Country>> getAllCountries() {
+        return ResponseEntity.ok().cacheControl(CATALOG_CACHE_CONTROL).body(countryCatalog.all());
+    }
+
+    /**
+     * Ranked autocomplete over names, alternative spellings, capitals and codes, with typo tolerance
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<Country>> searchCountries(@RequestParam("q") String query,
+                                                         @RequestParam(defaultValue = "10") int limit) {
+        int boundedLimit = Math.max(1, Math.min(limit, CountrySearchIndex.MAX_LIMIT));
+        return ResponseEntity.ok()
+            .cacheControl(CATALOG_CACHE_CONTROL)
+            .body(countrySearchIndex.search(query, boundedLimit));
+    }
+
+    @GetMapping("/{code}")
+    public ResponseEntity<?> getCountryByCode(@PathVariable String code) {
+        Optional<Country> country = countryCatalog.findByCode(code);
+
+        if (country.isEmpty()) {
+            return ResponseEntity.status(404).body(createErrorResponse("Country not found: " + code));
+        }
+
+        return ResponseEntity.ok().cacheControl(CATALOG_CACHE_CONTROL).body(country.get());
+    }
+
+    @GetMapping("/region/{region}")
+    public ResponseEntity<?> getCountriesByRegion(@PathVariable String region) {
+        List<Country> countries = countryCatalog.findByRegion(region);
+
+        if (countries.isEmpty()) {
+            return ResponseEntity.status(404).body(createErrorResponse("Region not found: " + region));
+        }
+
+        return ResponseEntity.ok().cacheControl(CATALOG_CACHE_CONTROL).body(countries);
+    }
+
+    private Map<String, Object> createErrorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+}
@@ -0,0 +1,344 @@
+package com.geoview.country;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.regex.Pattern;
+
+/**
+ * Autocomplete index over country names, alternative spellings, capitals and codes.
+ *
+ * Every word-start suffix of every normalized term ("united kingdom", "kingdom") is
+ * stored in one sorted array, so a prefix query is two binary searches over a
+ * contiguous range. When prefixes yield fewer than the requested number of results,
+ * keys that share enough character bigrams with the query are checked with a
+ * bounded prefix edit distance to tolerate typos.
+ *
+ * The index is immutable after startup. Queries borrow scratch buffers for scoring
+ * and edit distance from a small pool and return them when done, so they allocate
+ * only to normalize the query and to build the result list. The pool is shared
+ * rather than per thread: with virtual threads every request runs on a new thread.
+ */
+@Component
+public class CountrySearchIndex {
+
+    public static final int MAX_LIMIT = 50;
+
+    private static final int MAX_QUERY_LENGTH = 64;
+    // Below this length a single edit matches too much of the catalog to be useful
+    private static final int MIN_FUZZY_LENGTH = 4;
+    // Searches are short and CPU-bound, so few more run at once than there are cores
+    private static final int SCRATCH_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+
+    // Lower score ranks first: match kind dominates, then which field matched
+    private static final int EXACT = 0;
+    private static final int PREFIX = 100;
+    private static final int FUZZY = 200;
+    private static final int FUZZY_PER_EDIT = 100;
+    private static final int NOT_MATCHED = Integer.MAX_VALUE;
+
+    private static final int FIELD_NAME = 0;
+    private static final int FIELD_CODE = 1;
+    private static final int FIELD_ALT_SPELLING = 2;
+    private static final int FIELD_CAPITAL = 3;
+    // Matches that start mid-term ("kingdom" in "united kingdom") rank after whole-term matches
+    private static final int MID_TERM = 10;
+
+    @Autowired
+    private CountryCatalog countryCatalog;
+
+    /** Sorted index keys; entries at the same position in the parallel arrays describe the key. */
+    private String[] keys;
+    private int[] keyCountry;
+    private int[] keyWeight;
+    private long[] keyBigrams;
+
+    /** Idle scratch buffers; a search that finds none allocates its own. */
+    private final BlockingQueue<Scratch> scratchPool = new ArrayBlockingQueue<>(SCRATCH_POOL_SIZE);
+    private int countryCount;
+    private int rowLength;
+
+    @PostConstruct
+    void build() {
+        List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < countryCatalog.size(); i++) {
+            Country country = countryCatalog.get(i);
+            addTerm(entries, country.getCommonName(), i, FIELD_NAME);
+            addTerm(entries, country.getCca2(), i, FIELD_CODE);
+            addTerm(entries, country.getCca3(), i, FIELD_CODE);
+            for (String spelling : country.getAltSpellings()) {
+                addTerm(entries, spelling, i, FIELD_ALT_SPELLING);
+            }
+            for (String capital : country.getCapital()) {
+                addTerm(entries, capital, i, FIELD_CAPITAL);
+            }
+        }
+        entries.sort((a, b) -> a.key.compareTo(b.key));
+
+        int size = entries.size();
+        keys = new String[size];
+        keyCountry = new int[size];
+        keyWeight = new int[size];
+        keyBigrams = new long[size];
+        int maxKeyLength = 0;
+        for (int i = 0; i < size; i++) {
+            Entry entry = entries.get(i);
+            keys[i] = entry.key;
+            keyCountry[i] = entry.country;
+            keyWeight[i] = entry.weight;
+            keyBigrams[i] = bigrams(entry.key);
+            maxKeyLength = Math.max(maxKeyLength, entry.key.length());
+        }
+
+        countryCount = countryCatalog.size();
+        rowLength = Math.max(maxKeyLength, MAX_QUERY_LENGTH) + 1;
+    }
+
+    /**
+     * Ranked, top-k search. Returns at most {@code limit} countries, best match first.
+     */
+    public List<Country> search(String query, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        if (q.length() > MAX_QUERY_LENGTH) {
+            q = q.substring(0, MAX_QUERY_LENGTH);
+        }
+        int k = Math.min(limit, MAX_LIMIT);
+
+        Scratch s = borrowScratch();
+        try {
+            int from = lowerBound(q);
+            int to = prefixUpperBound(q, from);
+            for (int i = from; i < to; i++) {
+                int score = (keys[i].length() == q.length() ? EXACT : PREFIX) + keyWeight[i];
+                s.offer(keyCountry[i], score);
+            }
+
+            if (s.matchedCount < k && q.length() >= MIN_FUZZY_LENGTH) {
+                fuzzyMatch(q, s);
+            }
+
+            return s.topK(k, countryCatalog);
+        } finally {
+            returnScratch(s);
+        }
+    }
+
+    private Scratch borrowScratch() {
+        Scratch s = scratchPool.poll();
+        return s != null ? s : new Scratch(countryCount, rowLength);
+    }
+
+    // A full pool means a burst is ending; the extra buffer is left to the GC
+    private void returnScratch(Scratch s) {
+        s.reset();
+        scratchPool.offer(s);
+    }
+
+    private void fuzzyMatch(String q, Scratch s) {
+        int maxEdits = q.length() <= 5 ? 1 : 2;
+        long queryBigrams = bigrams(q);
+        // A single edit can remove at most two of the query's bigrams
+        int minShared = Math.max(1, Long.bitCount(queryBigrams) - 2 * maxEdits);
+
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].length() < q.length() - maxEdits
+                    || Long.bitCount(queryBigrams & keyBigrams[i]) < minShared) {
+                continue;
+            }
+            int country = keyCountry[i];
+            int distance = prefixEditDistance(q, keys[i], maxEdits, s);
+            if (distance > 0 && distance <= maxEdits) {
+                s.offer(country, FUZZY + FUZZY_PER_EDIT * (distance - 1) + keyWeight[i]);
+            }
+        }
+    }
+
+    /**
+     * Smallest edit distance between the query and any prefix of the key,
+     * or maxEdits + 1 once every prefix is known to exceed the bound.
+     */
+    private static int prefixEditDistance(String query, String key, int maxEdits, Scratch s) {
+        int n = query.length();
+        int m = Math.min(key.length(), n + maxEdits);
+        int[] previous = s.rowA;
+        int[] current = s.rowB;
+
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            char qc = query.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                int cost = qc == key.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        int best = maxEdits + 1;
+        for (int j = Math.max(0, n - maxEdits); j <= m; j++) {
+            best = Math.min(best, previous[j]);
+        }
+        return best;
+    }
+
+    private int lowerBound(String q) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(q) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int prefixUpperBound(String q, int from) {
+        int lo = from;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].startsWith(q)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static void addTerm(List<Entry> entries, String term, int country, int field) {
+        String normalized = normalize(term);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        entries.add(new Entry(normalized, country, field));
+        for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+            entries.add(new Entry(normalized.substring(i + 1), country, field + MID_TERM));
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * 64-bit signature of the character bigrams in the text, for cheap overlap checks.
+     */
+    private static long bigrams(String text) {
+        long bits = 0;
+        for (int i = 0; i + 1 < text.length(); i++) {
+            int hash = text.charAt(i) * 31 + text.charAt(i + 1);
+            bits |= 1L << (hash & 63);
+        }
+        return bits;
+    }
+
+    private static final class Entry {
+        final String key;
+        final int country;
+        final int weight;
+
+        Entry(String key, int country, int weight) {
+            this.key = key;
+            this.country = country;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Buffers for one search at a time: best score per country plus the edit distance rows.
+     */
+    private static final class Scratch {
+        final int[] bestScore;
+        final int[] matched;
+        final int[] rowA;
+        final int[] rowB;
+        int matchedCount;
+
+        Scratch(int countryCount, int rowLength) {
+            bestScore = new int[countryCount];
+            matched = new int[countryCount];
+            rowA = new int[rowLength];
+            rowB = new int[rowLength];
+            Arrays.fill(bestScore, NOT_MATCHED);
+        }
+
+        void reset() {
+            for (int i = 0; i < matchedCount; i++) {
+                bestScore[matched[i]] = NOT_MATCHED;
+            }
+            matchedCount = 0;
+        }
+
+        void offer(int country, int score) {
+            int current = bestScore[country];
+            if (current == NOT_MATCHED) {
+                matched[matchedCount++] = country;
+                bestScore[country] = score;
+            } else if (score < current) {
+                bestScore[country] = score;
+            }
+        }
+
+        List<Country> topK(int k, CountryCatalog catalog) {
+            int count = Math.min(k, matchedCount);
+            // Partial selection sort over the matched countries; k is small
+            for (int i = 0; i < count; i++) {
+                int best = i;
+                for (int j = i + 1; j < matchedCount; j++) {
+                    if (ranksBefore(matched[j], matched[best], catalog)) {
+                        best = j;
+                    }
+                }
+                int swap = matched[i];
+                matched[i] = matched[best];
+                matched[best] = swap;
+            }
+
+            List<Country> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(catalog.get(matched[i]));
+            }
+            return result;
+        }
+
+        private boolean ranksBefore(int a, int b, CountryCatalog catalog) {
+            if (bestScore[a] != bestScore[b]) {
+                return bestScore[a] < bestScore[b];
+            }
+            return catalog.get(a).getCommonName().compareTo(catalog.get(b).getCommonName()) < 0;
+        }
+    }
+}
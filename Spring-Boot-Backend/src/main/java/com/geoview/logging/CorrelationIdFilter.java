@@ -0,0 +1,66 @@
+package com.geoview.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Tags every request with a correlation id: taken from the {@code X-Correlation-Id}
+ * header when the caller (or the load balancer) sent a well-formed one, generated
+ * otherwise. The id is put into the MDC for the log pattern and echoed on the response.
+ * Runs first so the security filters log with the id too.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CorrelationIdFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Correlation-Id";
+    public static final String MDC_KEY = "correlationId";
+
+    private static final int MAX_LENGTH = 64;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String correlationId = resolve(request.getHeader(HEADER));
+        MDC.put(MDC_KEY, correlationId);
+        response.setHeader(HEADER, correlationId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(MDC_KEY);
+        }
+    }
+
+    /**
+     * Returns the incoming id if it is safe to log (bounded length, no separators or
+     * control characters), otherwise a new random one.
+     */
+    public static String resolve(String incoming) {
+        if (incoming != null && !incoming.isEmpty() && incoming.length() <= MAX_LENGTH) {
+            boolean valid = true;
+            for (int i = 0; i < incoming.length() && valid; i++) {
+                char c = incoming.charAt(i);
+                valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                        || c == '-' || c == '_' || c == '.';
+            }
+            if (valid) {
+                return incoming;
+            }
+        }
+        // Not a UUID: SecureRandom would be shared by every request thread
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong());
+    }
+}
@@ -0,0 +1,81 @@
+package com.geoview.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps only a fraction of the events logged by noisy categories so a flood of
+ * per-request messages (e.g. rejected tokens) cannot saturate the async appender.
+ *
+ * Rates are configured as {@code logger=rate} pairs, separated by commas, where
+ * rate is the fraction of events kept (0.0 - 1.0). The most specific logger prefix
+ * wins. Only events at or below {@code maxLevel} (WARN by default) are sampled, so
+ * ERROR events are always kept.
+ * Runs before the appenders, so dropped events cost no formatting or queueing.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private static final double KEEP_ALL = 1.0;
+
+    private final Map<String, Double> rates = new LinkedHashMap<>();
+    private final Map<String, Double> resolved = new ConcurrentHashMap<>();
+    private Level maxLevel = Level.WARN;
+
+    public void setRates(String spec) {
+        if (spec == null) {
+            return;
+        }
+        for (String entry : spec.split(",")) {
+            int eq = entry.lastIndexOf('=');
+            if (eq <= 0) {
+                continue;
+            }
+            try {
+                double rate = Double.parseDouble(entry.substring(eq + 1).trim());
+                rates.put(entry.substring(0, eq).trim(), Math.max(0.0, Math.min(KEEP_ALL, rate)));
+            } catch (NumberFormatException e) {
+                addWarn("Ignoring sampling rate '" + entry.trim() + "'");
+            }
+        }
+    }
+
+    public void setMaxLevel(String level) {
+        this.maxLevel = Level.toLevel(level, Level.WARN);
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format,
+                              Object[] params, Throwable t) {
+        // isXxxEnabled() checks pass no message; sampling them would skew the guarded call
+        if (format == null || level == null || level.toInt() > maxLevel.toInt()) {
+            return FilterReply.NEUTRAL;
+        }
+        if (!level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        double rate = resolved.computeIfAbsent(logger.getName(), this::rateFor);
+        if (rate >= KEEP_ALL || ThreadLocalRandom.current().nextDouble() < rate) {
+            return FilterReply.NEUTRAL;
+        }
+        return FilterReply.DENY;
+    }
+
+    private double rateFor(String loggerName) {
+        String match = null;
+        for (String prefix : rates.keySet()) {
+            boolean matches = loggerName.equals(prefix) || loggerName.startsWith(prefix + ".");
+            if (matches && (match == null || prefix.length() > match.length())) {
+                match = prefix;
+            }
+        }
+        return match != null ? rates.get(match) : KEEP_ALL;
+    }
+}
@@ -0,0 +1,78 @@
+package com.geoview.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A user's favorite countries as a 256-bit bitmap over the country catalog index,
+ * plus the ISO alpha-2 codes in the order they were added. Names and flags are not
+ * stored; they are resolved from the catalog when a response is built.
+ *
+ * The bits are only meaningful for the catalog they were computed against
+ * ({@link #getCatalog()}, a fingerprint of the catalog's code order); the codes are
+ * the source of truth and the bits are rebuilt from them when the catalog changes.
+ * Stored in MongoDB as {@code favorites: {bits: [4 longs], codes: [...], catalog}}.
+ */
+public class FavoriteCountrySet {
+
+    public static final int WORDS = 4;
+
+    public static final int CAPACITY = WORDS * Long.SIZE;
+
+    private long[] bits = new long[WORDS];
+
+    private List<String> codes = new ArrayList<>();
+
+    private int catalog;
+
+    public FavoriteCountrySet() {
+    }
+
+    public FavoriteCountrySet(long[] bits, List<String> codes, int catalog) {
+        this.bits = bits;
+        this.codes = codes;
+        this.catalog = catalog;
+    }
+
+    /** Bitmap word holding the bit of a catalog index. */
+    public static int word(int index) {
+        return index >>> 6;
+    }
+
+    /** Mask of a catalog index within its word. */
+    public static long mask(int index) {
+        return 1L << (index & 63);
+    }
+
+    public boolean contains(int index) {
+        return index >= 0 && index < CAPACITY && (bits[word(index)] & mask(index)) != 0;
+    }
+
+    public int size() {
+        return codes.size();
+    }
+
+    public long[] getBits() {
+        return bits;
+    }
+
+    public void setBits(long[] bits) {
+        this.bits = bits;
+    }
+
+    public List<String> getCodes() {
+        return codes;
+    }
+
+    public void setCodes(List<String> codes) {
+        this.codes = codes;
+    }
+
+    public int getCatalog() {
+        return catalog;
+    }
+
+    public void setCatalog(int catalog) {
+        this.catalog = catalog;
+    }
+}
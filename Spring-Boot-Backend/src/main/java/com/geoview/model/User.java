@@ -3,16 +3,22 @@ package com.geoview.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.index.Indexed;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 
 @Document(collection = "users")
-public class User {
+public class User implements UserView {
+    
+    // Emails are unique and matched case-insensitively; queries on email must use the same collation as the index
+    public static final String EMAIL_COLLATION_LOCALE = "en";
+    public static final int EMAIL_COLLATION_STRENGTH = 2;
+    public static final String EMAIL_COLLATION = "{ 'locale' : 'en', 'strength' : 2 }";
+    
+    // Credentials-only projection for login and principals; the rest of the document is not read
+    public static final String CREDENTIAL_FIELDS = "{ 'username' : 1, 'email' : 1, 'password' : 1, 'tokenVersion' : 1 }";
     
     @Id
     private String id;
@@ -25,17 +31,24 @@ public class User {
     @NotBlank
     @Size(max = 50)
     @Email
-    @Indexed(unique = true)
+    @Indexed(unique = true, collation = EMAIL_COLLATION)
     private String email;
     
     @NotBlank
     @Size(min = 6, max = 120)
     private String password;
     
-    private List<FavoriteCountry> favoriteCountries = new ArrayList<>();
+    // Bitmap over the country catalog; names and flags are resolved from the catalog on read
+    private FavoriteCountrySet favorites = new FavoriteCountrySet();
     
     private LocalDateTime createdAt;
     
+    // Embedded in issued JWTs; bump to invalidate tokens carrying an older version
+    private int tokenVersion;
+    
+    // Incremented by every profile and favorites update; profile ETags are derived from it
+    private long version;
+    
     // Default constructor
     public User() {
         this.createdAt = LocalDateTime.now();
@@ -50,6 +63,7 @@ public class User {
     }
     
     // Getters and Setters
+    @Override
     public String getId() {
         return id;
     }
@@ -82,12 +96,12 @@ public class User {
         this.password = password;
     }
     
-    public List<FavoriteCountry> getFavoriteCountries() {
-        return favoriteCountries;
+    public FavoriteCountrySet getFavorites() {
+        return favorites;
     }
     
-    public void setFavoriteCountries(List<FavoriteCountry> favoriteCountries) {
-        this.favoriteCountries = favoriteCountries;
+    public void setFavorites(FavoriteCountrySet favorites) {
+        this.favorites = favorites;
     }
     
     public LocalDateTime getCreatedAt() {
@@ -98,17 +112,32 @@ public class User {
         this.createdAt = createdAt;
     }
     
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+    
+    public void setTokenVersion(int tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+    
+    @Override
+    public long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(long version) {
+        this.version = version;
+    }
+    
     // Password hashing method (equivalent to Node.js pre-save hook)
-    public void hashPassword() {
+    public void hashPassword(PasswordEncoder encoder) {
         if (this.password != null && !this.password.startsWith("$2a$")) {
-            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(10);
             this.password = encoder.encode(this.password);
         }
     }
     
     // Compare password method (equivalent to Node.js comparePassword method)
-    public boolean comparePassword(String candidatePassword) {
-        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+    public boolean comparePassword(String candidatePassword, PasswordEncoder encoder) {
         return encoder.matches(candidatePassword, this.password);
     }
 }
\ No newline at end of file
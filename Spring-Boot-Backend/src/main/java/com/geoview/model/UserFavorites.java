@@ -0,0 +1,52 @@
+package com.geoview.model;
+
+/**
+ * Projection of a user down to its favorites bitmap and document version, for the
+ * favorites endpoint and its cache.
+ */
+public class UserFavorites implements UserView {
+    
+    /** Fields read from the users collection ({@code _id} is always included). */
+    public static final String[] FIELDS = {"favorites", "version"};
+    
+    private String id;
+    
+    private FavoriteCountrySet favorites;
+    
+    private long version;
+    
+    public UserFavorites() {
+    }
+    
+    public UserFavorites(String id, FavoriteCountrySet favorites, long version) {
+        this.id = id;
+        this.favorites = favorites;
+        this.version = version;
+    }
+    
+    @Override
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public FavoriteCountrySet getFavorites() {
+        return favorites;
+    }
+    
+    public void setFavorites(FavoriteCountrySet favorites) {
+        this.favorites = favorites;
+    }
+    
+    @Override
+    public long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,89 @@
+package com.geoview.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of a user without credentials: everything the profile endpoint returns,
+ * plus the token version so principals can be built from it. This is what the
+ * profile caches hold, so password hashes never reach Redis.
+ */
+public class UserProfile implements UserView {
+    
+    /** Fields read from the users collection ({@code _id} is always included). */
+    public static final String[] FIELDS = {"username", "email", "favorites", "createdAt", "tokenVersion", "version"};
+    
+    private String id;
+    
+    private String username;
+    
+    private String email;
+    
+    private FavoriteCountrySet favorites;
+    
+    private LocalDateTime createdAt;
+    
+    private int tokenVersion;
+    
+    private long version;
+    
+    public UserProfile() {
+    }
+    
+    @Override
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getUsername() {
+        return username;
+    }
+    
+    public void setUsername(String username) {
+        this.username = username;
+    }
+    
+    public String getEmail() {
+        return email;
+    }
+    
+    public void setEmail(String email) {
+        this.email = email;
+    }
+    
+    public FavoriteCountrySet getFavorites() {
+        return favorites;
+    }
+    
+    public void setFavorites(FavoriteCountrySet favorites) {
+        this.favorites = favorites;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+    
+    public void setTokenVersion(int tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+    
+    @Override
+    public long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,12 @@
+package com.geoview.model;
+
+/**
+ * A whole user document or a projection of one: the id and document version that
+ * cache tags and ETags are derived from.
+ */
+public interface UserView {
+
+    String getId();
+
+    long getVersion();
+}
@@ -0,0 +1,94 @@
+package com.geoview.mongo;
+
+import com.geoview.country.CountryCatalog;
+import com.geoview.model.User;
+import com.geoview.repository.FavoriteQueries;
+import com.geoview.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Rewrites favorites still stored in the legacy {@code favoriteCountries} list, or as a
+ * bitmap computed against another country catalog, into a bitmap for the current
+ * catalog. Runs once in the background after startup; documents it has not reached
+ * yet are migrated on their first read or favorites update instead, so the order
+ * does not matter for correctness.
+ */
+@Component
+public class FavoritesMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(FavoritesMigration.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CountryCatalog countryCatalog;
+
+    @Value("${geoview.mongo.favoritesMigrationEnabled:true}")
+    private boolean enabled;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "favorites-migration");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            executor.execute(this::migrate);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    private void migrate() {
+        List<String> userIds = new ArrayList<>();
+        try (Stream<Document> stale = mongoTemplate.stream(FavoriteQueries.stale(countryCatalog.fingerprint()),
+                Document.class, mongoTemplate.getCollectionName(User.class))) {
+            stale.forEach(document -> userIds.add(String.valueOf(document.get("_id"))));
+        } catch (RuntimeException e) {
+            log.warn("Could not list users with stale favorites, they migrate on first use: {}", e.getMessage());
+            return;
+        }
+        if (userIds.isEmpty()) {
+            return;
+        }
+
+        int migrated = 0;
+        for (String userId : userIds) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            try {
+                if (userRepository.migrateFavorites(userId)) {
+                    migrated++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Favorites migration failed for userId {}: {}", userId, e.getMessage());
+            }
+        }
+        log.info("Migrated favorites of {} users to the bitmap layout", migrated);
+    }
+}
@@ -0,0 +1,191 @@
+package com.geoview.mongo;
+
+import com.geoview.model.User;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Collation;
+import com.mongodb.client.model.CollationStrength;
+import com.mongodb.client.model.IndexOptions;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates and verifies the indexes the application's queries depend on. Replaces
+ * {@code spring.data.mongodb.auto-index-creation}, which cannot report or repair an
+ * index whose options differ and fails startup on such a conflict.
+ *
+ * Runs before the application reports ready. A missing index is created. An index
+ * on the right keys but with different options (uniqueness, collation) is reported
+ * as drift and, when {@code geoview.mongo.indexRepair} is enabled, dropped and
+ * recreated. Indexes this class does not manage are listed but left alone.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MongoIndexManager implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexManager.class);
+
+    static final String USERS = "users";
+
+    private static final List<RequiredIndex> REQUIRED = List.of(
+        new RequiredIndex(USERS, "username_1", new Document("username", 1), true, null, null),
+        new RequiredIndex(USERS, "email_1", new Document("email", 1), true,
+            User.EMAIL_COLLATION_LOCALE, User.EMAIL_COLLATION_STRENGTH)
+    );
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${geoview.mongo.indexRepair:false}")
+    private boolean indexRepair;
+
+    private final AtomicInteger driftCount = new AtomicInteger();
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Gauge.builder("geoview.mongo.index.drift", driftCount, AtomicInteger::get)
+            .description("Required MongoDB indexes that are missing or differ from their definition")
+            .register(meterRegistry);
+
+        int drifted = 0;
+        for (RequiredIndex required : REQUIRED) {
+            try {
+                if (!ensure(required)) {
+                    drifted++;
+                }
+            } catch (Exception e) {
+                drifted++;
+                log.error("Index {}.{} could not be provisioned: {}", required.collection, required.name, e.getMessage());
+            }
+        }
+        driftCount.set(drifted);
+
+        try {
+            reportUnmanaged();
+        } catch (Exception e) {
+            log.warn("Could not list indexes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns true when the index exists as defined after this call.
+     */
+    private boolean ensure(RequiredIndex required) {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(required.collection);
+
+        Document existing = null;
+        for (Document index : collection.listIndexes()) {
+            if (required.keys.equals(index.get("key", Document.class))) {
+                existing = index;
+                break;
+            }
+        }
+
+        if (existing == null) {
+            collection.createIndex(required.keys, required.options());
+            log.info("Created index {}.{}", required.collection, required.name);
+            return true;
+        }
+
+        List<String> differences = required.differencesFrom(existing);
+        if (differences.isEmpty()) {
+            return true;
+        }
+
+        String existingName = existing.getString("name");
+        log.warn("Index drift on {}.{}: {}", required.collection, existingName, String.join(", ", differences));
+        if (!indexRepair) {
+            log.warn("Set geoview.mongo.indexRepair=true to rebuild {}.{}", required.collection, existingName);
+            return false;
+        }
+
+        // Uniqueness is not enforced between the drop and the end of the rebuild
+        collection.dropIndex(existingName);
+        collection.createIndex(required.keys, required.options());
+        log.info("Rebuilt index {}.{}", required.collection, required.name);
+        return true;
+    }
+
+    private void reportUnmanaged() {
+        List<String> collections = REQUIRED.stream().map(index -> index.collection).distinct().toList();
+        for (String collectionName : collections) {
+            for (Document index : mongoTemplate.getCollection(collectionName).listIndexes()) {
+                Document keys = index.get("key", Document.class);
+                boolean managed = "_id_".equals(index.getString("name"))
+                    || REQUIRED.stream().anyMatch(required ->
+                        required.collection.equals(collectionName) && required.keys.equals(keys));
+                if (!managed) {
+                    log.info("Unmanaged index {}.{} {}", collectionName, index.getString("name"), keys.toJson());
+                }
+            }
+        }
+    }
+
+    private static final class RequiredIndex {
+        private final String collection;
+        private final String name;
+        private final Document keys;
+        private final boolean unique;
+        private final String collationLocale;
+        private final Integer collationStrength;
+
+        private RequiredIndex(String collection, String name, Document keys, boolean unique,
+                              String collationLocale, Integer collationStrength) {
+            this.collection = collection;
+            this.name = name;
+            this.keys = keys;
+            this.unique = unique;
+            this.collationLocale = collationLocale;
+            this.collationStrength = collationStrength;
+        }
+
+        private IndexOptions options() {
+            IndexOptions options = new IndexOptions().name(name).unique(unique);
+            if (collationLocale != null) {
+                options.collation(Collation.builder()
+                    .locale(collationLocale)
+                    .collationStrength(CollationStrength.fromInt(collationStrength))
+                    .build());
+            }
+            return options;
+        }
+
+        private List<String> differencesFrom(Document existing) {
+            List<String> differences = new ArrayList<>();
+            if (unique != existing.getBoolean("unique", false)) {
+                differences.add("unique expected " + unique);
+            }
+
+            Document collation = existing.get("collation", Document.class);
+            String locale = collation != null ? collation.getString("locale") : null;
+            Integer strength = collation != null ? collation.getInteger("strength") : null;
+            if (collationLocale == null) {
+                if (locale != null && !"simple".equals(locale)) {
+                    differences.add("collation expected simple but is " + collation.toJson());
+                }
+            } else if (!collationLocale.equals(locale) || !Objects.equals(collationStrength, strength)) {
+                differences.add("collation expected locale " + collationLocale + " strength " + collationStrength
+                    + " but is " + (collation != null ? collation.toJson() : "simple"));
+            }
+            return differences;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.geoview.mongo;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.client.MongoClient;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Driver command listener that explains queries slower than a threshold and
+ * flags plans that scan the whole collection (COLLSCAN).
+ *
+ * Each query shape (collection, command and filter field names) is explained at
+ * most once per interval, on a single background thread with a small queue, so
+ * sampling never adds latency to the query itself.
+ *
+ * The command document is only valid during the started callback, so explaining a
+ * command means copying it up front. Only commands on a collection and command name
+ * that were slow within the last interval are copied: the first slow query there arms
+ * sampling, the next slow one is explained. Fast traffic only pays for a map entry.
+ */
+@Component
+public class SlowQuerySampler implements CommandListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQuerySampler.class);
+
+    private static final Set<String> EXPLAINABLE = Set.of("find", "count", "aggregate", "distinct", "findAndModify", "update", "delete");
+
+    // Driver-added fields that explain rejects or that do not belong in the explained command
+    private static final Set<String> SESSION_FIELDS = Set.of("$db", "lsid", "$clusterTime", "txnNumber", "$readPreference", "apiVersion", "autocommit", "startTransaction");
+
+    @Autowired
+    private ObjectProvider<MongoClient> mongoClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${geoview.mongo.slowQuerySamplerEnabled:true}")
+    private boolean enabled;
+
+    @Value("${geoview.mongo.slowQueryThresholdMs:100}")
+    private long thresholdMs;
+
+    @Value("${geoview.mongo.slowQueryExplainIntervalMs:60000}")
+    private long explainIntervalMs;
+
+    private final Map<Integer, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor explainExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(16),
+        runnable -> {
+            Thread thread = new Thread(runnable, "mongo-slow-query-explain");
+            thread.setDaemon(true);
+            return thread;
+        },
+        new ThreadPoolExecutor.DiscardPolicy());
+    private Cache<String, Boolean> recentlyExplained;
+
+    // Collection and command name targets ("db.collection command") whose commands are copied
+    private Cache<String, Boolean> armed;
+
+    @PostConstruct
+    void init() {
+        recentlyExplained = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(Duration.ofMillis(explainIntervalMs))
+            .build();
+        armed = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(Duration.ofMillis(explainIntervalMs))
+            .build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (!enabled || !EXPLAINABLE.contains(event.getCommandName())) {
+            return;
+        }
+        BsonValue collectionName = event.getCommand().get(event.getCommandName());
+        String collection = collectionName != null && collectionName.isString()
+            ? collectionName.asString().getValue() : "?";
+        String target = event.getDatabaseName() + "." + collection + " " + event.getCommandName();
+        // The event's document may be backed by a pooled buffer released after the callback
+        BsonDocument command = armed.getIfPresent(target) != null ? event.getCommand().clone() : null;
+        inFlight.put(event.getRequestId(), new InFlight(target, collection, command));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        InFlight started = inFlight.remove(event.getRequestId());
+        if (started == null || event.getElapsedTime(TimeUnit.MILLISECONDS) < thresholdMs) {
+            return;
+        }
+        if (started.command == null) {
+            armed.put(started.target, Boolean.TRUE);
+            return;
+        }
+
+        String shape = started.target + " " + filterKeys(started.command);
+        if (recentlyExplained.asMap().putIfAbsent(shape, Boolean.TRUE) != null) {
+            return;
+        }
+
+        long elapsedMs = event.getElapsedTime(TimeUnit.MILLISECONDS);
+        explainExecutor.execute(() ->
+            explain(event.getDatabaseName(), started.collection, shape, started.command, elapsedMs));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        inFlight.remove(event.getRequestId());
+    }
+
+    private void explain(String database, String collection, String shape, BsonDocument command, long elapsedMs) {
+        try {
+            BsonDocument explained = new BsonDocument();
+            command.forEach((key, value) -> {
+                if (!SESSION_FIELDS.contains(key)) {
+                    explained.put(key, value);
+                }
+            });
+
+            Document result = mongoClient.getObject().getDatabase(database)
+                .runCommand(new Document("explain", explained).append("verbosity", "queryPlanner"));
+            Document planner = result.get("queryPlanner", Document.class);
+            Document winningPlan = planner != null ? planner.get("winningPlan", Document.class) : null;
+            boolean collectionScan = winningPlan != null && hasStage(winningPlan, "COLLSCAN");
+
+            meterRegistry.counter("geoview.mongo.slow.queries",
+                "collection", collection, "plan", collectionScan ? "COLLSCAN" : "indexed").increment();
+            if (collectionScan) {
+                log.warn("Slow query ({} ms) is a COLLSCAN: {} filter {}", elapsedMs, shape, filterOf(command));
+            } else {
+                log.info("Slow query ({} ms) uses an index: {}", elapsedMs, shape);
+            }
+        } catch (Exception e) {
+            log.warn("Could not explain slow query {}: {}", shape, e.getMessage());
+        }
+    }
+
+    private static boolean hasStage(Document plan, String stage) {
+        if (stage.equals(plan.getString("stage"))) {
+            return true;
+        }
+        Object input = plan.get("inputStage");
+        if (input instanceof Document child && hasStage(child, stage)) {
+            return true;
+        }
+        Object inputs = plan.get("inputStages");
+        if (inputs instanceof List<?> children) {
+            for (Object child : children) {
+                if (child instanceof Document document && hasStage(document, stage)) {
+                    return true;
+                }
+            }
+        }
+        // Slot-based engine plans nest the classic plan under queryPlan
+        Object queryPlan = plan.get("queryPlan");
+        return queryPlan instanceof Document child && hasStage(child, stage);
+    }
+
+    private static BsonValue filterOf(BsonDocument command) {
+        if (command.containsKey("filter")) {
+            return command.get("filter");
+        }
+        if (command.containsKey("query")) {
+            return command.get("query");
+        }
+        return new BsonDocument();
+    }
+
+    // Field names only, so the same query with different values shares one shape
+    private static String filterKeys(BsonDocument command) {
+        BsonValue filter = filterOf(command);
+        return filter.isDocument() ? filter.asDocument().keySet().toString() : "[]";
+    }
+
+    private record InFlight(String target, String collection, BsonDocument command) {
+    }
+}
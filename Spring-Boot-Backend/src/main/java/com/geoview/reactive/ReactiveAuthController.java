@@ -0,0 +1,210 @@
+package com.geoview.reactive;
+
+import com.geoview.country.CountryCatalog;
+import com.geoview.dto.LoginRequest;
+import com.geoview.dto.SignUpRequest;
+import com.geoview.model.User;
+import com.geoview.security.JwtUtils;
+import com.geoview.service.AccountAvailabilityService;
+import com.geoview.service.HashingCapacityExceededException;
+import com.geoview.service.PasswordHashingService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reactive counterpart of {@link com.geoview.controller.AuthController}, with the same
+ * paths, request bodies and responses. bcrypt runs on the bounded hashing pool; the
+ * event loop only waits for its result.
+ */
+@CrossOrigin(origins = {"http://localhost:5173", "http://127.0.0.1:5173"}, allowCredentials = "true")
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/auth")
+public class ReactiveAuthController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveAuthController.class);
+
+    private static final long TOKEN_COOKIE_MAX_AGE = 7 * 24 * 60 * 60; // 7 days
+
+    @Autowired
+    ReactiveUserRepository userRepository;
+
+    @Autowired
+    ReactiveUserService userService;
+
+    @Autowired
+    PasswordHashingService passwordHashingService;
+
+    @Autowired
+    AccountAvailabilityService accountAvailabilityService;
+
+    @Autowired
+    CountryCatalog countryCatalog;
+
+    @Autowired
+    JwtUtils jwtUtils;
+
+    @PostMapping("/register")
+    public Mono<ResponseEntity<Map<String, Object>>> registerUser(@Valid @RequestBody SignUpRequest signUpRequest) {
+        log.debug("Registering user: {}", signUpRequest.getUsername());
+
+        // One insert; the unique indexes on username and email decide duplicates
+        return Mono.defer(() -> Mono.fromFuture(passwordHashingService.encode(signUpRequest.getPassword())))
+                .map(hash -> {
+                    User user = new User(signUpRequest.getUsername(), signUpRequest.getEmail(), hash);
+                    // Stamped with the catalog so the first favorite update needs no migration
+                    user.setFavorites(countryCatalog.favoriteSet(List.of()));
+                    return user;
+                })
+                .flatMap(user -> userRepository.insert(user)
+                        .map(saved -> {
+                            accountAvailabilityService.recordTaken(saved.getUsername(), saved.getEmail());
+                            String jwt = jwtUtils.generateJwtToken(saved);
+                            return ResponseEntity.ok()
+                                    .header(HttpHeaders.SET_COOKIE, tokenCookie(jwt, TOKEN_COOKIE_MAX_AGE).toString())
+                                    .body(createSuccessResponse("User registered successfully", jwt, saved));
+                        })
+                        .onErrorResume(DuplicateKeyException.class, e -> {
+                            String field = AccountAvailabilityService.duplicateField(e);
+                            boolean emailTaken = AccountAvailabilityService.FIELD_EMAIL.equals(field);
+                            accountAvailabilityService.recordTaken(
+                                    emailTaken ? null : user.getUsername(), emailTaken ? user.getEmail() : null);
+                            return Mono.just(ResponseEntity.badRequest().body(createErrorResponse(emailTaken
+                                    ? "User with this email already exists"
+                                    : "User with this username already exists")));
+                        }));
+    }
+
+    /**
+     * Sign-up form check; answered from the in-memory filters when they rule the value out,
+     * otherwise with one reactive exists query.
+     */
+    @GetMapping("/availability")
+    public Mono<ResponseEntity<Map<String, Object>>> checkAvailability(@RequestParam(required = false) String username,
+                                                                       @RequestParam(required = false) String email) {
+        boolean checkUsername = username != null && !username.isBlank();
+        boolean checkEmail = email != null && !email.isBlank();
+        if (!checkUsername && !checkEmail) {
+            return Mono.just(ResponseEntity.badRequest().body(createErrorResponse("Provide a username or email to check")));
+        }
+
+        Mono<Boolean> usernameAvailable = !checkUsername ? Mono.just(true)
+                : accountAvailabilityService.isUsernameKnownFree(username) ? Mono.just(true)
+                : userRepository.existsByUsername(username).map(exists -> !exists);
+        Mono<Boolean> emailAvailable = !checkEmail ? Mono.just(true)
+                : accountAvailabilityService.isEmailKnownFree(email) ? Mono.just(true)
+                : userRepository.existsByEmail(email).map(exists -> !exists);
+
+        return Mono.zip(usernameAvailable, emailAvailable).map(available -> {
+            Map<String, Object> responseMap = new HashMap<>();
+            responseMap.put("success", true);
+            if (checkUsername) {
+                responseMap.put("usernameAvailable", available.getT1());
+            }
+            if (checkEmail) {
+                responseMap.put("emailAvailable", available.getT2());
+            }
+            return ResponseEntity.ok(responseMap);
+        });
+    }
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<Map<String, Object>>> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+        log.debug("Login attempt: {}", loginRequest.getEmail());
+
+        ResponseEntity<Map<String, Object>> invalid = ResponseEntity.badRequest()
+                .body(createErrorResponse("Invalid email or password"));
+
+        // Credentials only: favorites and the rest of the document are not needed to log in
+        return userRepository.findCredentialsByEmail(loginRequest.getEmail())
+                .flatMap(user -> Mono.fromFuture(passwordHashingService.matches(loginRequest.getPassword(), user.getPassword()))
+                        .map(matches -> {
+                            if (!matches) {
+                                return invalid;
+                            }
+
+                            if (passwordHashingService.needsRehash(user.getPassword())) {
+                                upgradePasswordHash(user, loginRequest.getPassword());
+                            }
+
+                            String jwt = jwtUtils.generateJwtToken(user);
+                            return ResponseEntity.ok()
+                                    .header(HttpHeaders.SET_COOKIE, tokenCookie(jwt, TOKEN_COOKIE_MAX_AGE).toString())
+                                    .body(createSuccessResponse("Login successful", jwt, user));
+                        }))
+                .defaultIfEmpty(invalid);
+    }
+
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<Map<String, Object>>> logoutUser() {
+        Map<String, Object> responseMap = new HashMap<>();
+        responseMap.put("success", true);
+        responseMap.put("message", "Logout successful");
+
+        return Mono.just(ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, tokenCookie("", 0).toString())
+                .body(responseMap));
+    }
+
+    @ExceptionHandler(HashingCapacityExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleHashingCapacityExceeded(HashingCapacityExceededException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(createErrorResponse("Too many authentication requests, please retry shortly"));
+    }
+
+    /**
+     * Re-hash with the configured bcrypt cost in the background; the login response does not wait.
+     */
+    private void upgradePasswordHash(User user, String rawPassword) {
+        String currentHash = user.getPassword();
+        Mono.defer(() -> Mono.fromFuture(passwordHashingService.encode(rawPassword)))
+                .flatMap(newHash -> userService.upgradePasswordHash(user.getId(), currentHash, newHash))
+                .subscribe(null, e -> log.warn("Password hash upgrade skipped for userId {}: {}",
+                        user.getId(), e.getMessage()));
+    }
+
+    private ResponseCookie tokenCookie(String jwt, long maxAge) {
+        return ResponseCookie.from("token", jwt)
+                .httpOnly(true)
+                .maxAge(maxAge)
+                .path("/")
+                .build();
+    }
+
+    private Map<String, Object> createSuccessResponse(String message, String token, User user) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", message);
+        response.put("token", token);
+
+        Map<String, Object> userInfo = new HashMap<>();
+        userInfo.put("id", user.getId());
+        userInfo.put("username", user.getUsername());
+        userInfo.put("email", user.getEmail());
+        response.put("user", userInfo);
+
+        return response;
+    }
+
+    private Map<String, Object> createErrorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+}
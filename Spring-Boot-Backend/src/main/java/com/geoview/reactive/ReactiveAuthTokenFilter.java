@@ -0,0 +1,92 @@
+package com.geoview.reactive;
+
+import com.geoview.security.JwtClaims;
+import com.geoview.security.JwtUtils;
+import com.geoview.security.UserPrincipal;
+import com.geoview.service.UserDetailsServiceImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive counterpart of {@link com.geoview.security.AuthTokenFilter}: reads the JWT
+ * from the "token" cookie or the Bearer header and puts the authenticated principal
+ * into the reactive security context.
+ *
+ * Token verification is CPU-only and cached, so it runs inline on the event loop.
+ * Principals are built from the claims in token mode, otherwise loaded through the
+ * reactive user cache; neither path blocks.
+ */
+public class ReactiveAuthTokenFilter implements WebFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveAuthTokenFilter.class);
+
+    private final JwtUtils jwtUtils;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final ReactiveUserService userService;
+
+    public ReactiveAuthTokenFilter(JwtUtils jwtUtils,
+                                   UserDetailsServiceImpl userDetailsService,
+                                   ReactiveUserService userService) {
+        this.jwtUtils = jwtUtils;
+        this.userDetailsService = userDetailsService;
+        this.userService = userService;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String jwt = parseJwt(exchange);
+        JwtClaims claims = jwt != null ? jwtUtils.parseToken(jwt) : null;
+        if (claims == null) {
+            return chain.filter(exchange);
+        }
+
+        return loadPrincipal(claims)
+                .map(principal -> new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()))
+                .onErrorResume(e -> {
+                    log.warn("Cannot set user authentication: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .flatMap(authentication -> chain.filter(exchange)
+                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication))
+                        .thenReturn(true))
+                .switchIfEmpty(Mono.defer(() -> chain.filter(exchange).thenReturn(true)))
+                .then();
+    }
+
+    private Mono<UserDetails> loadPrincipal(JwtClaims claims) {
+        // The token-mode path reads the shared token version with a blocking Redis call
+        if (userDetailsService.isTokenPrincipalSource() && claims.hasIdentity()) {
+            return Mono.fromCallable(() -> userDetailsService.loadUserByClaims(claims))
+                    .subscribeOn(Schedulers.boundedElastic());
+        }
+
+        return userService.getUserProfile(claims.getSubject())
+                .map(UserPrincipal::create);
+    }
+
+    String parseJwt(ServerWebExchange exchange) {
+        // Try to get token from cookie first
+        HttpCookie cookie = exchange.getRequest().getCookies().getFirst("token");
+        if (cookie != null && !cookie.getValue().isEmpty()) {
+            return cookie.getValue();
+        }
+
+        // Fallback to Authorization header
+        String headerAuth = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (headerAuth != null && headerAuth.startsWith("Bearer ")) {
+            return headerAuth.substring(7);
+        }
+
+        return null;
+    }
+}
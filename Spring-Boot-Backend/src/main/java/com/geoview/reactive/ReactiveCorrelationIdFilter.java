@@ -0,0 +1,42 @@
+package com.geoview.reactive;
+
+import com.geoview.logging.CorrelationIdFilter;
+import io.micrometer.context.ContextRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link CorrelationIdFilter}. The id travels in the Reactor
+ * context; the MDC accessor registered here lets automatic context propagation
+ * ({@code spring.reactor.context-propagation=auto}) restore it on whichever thread
+ * runs the next operator, so log lines carry it across the event loop and Lettuce threads.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCorrelationIdFilter implements WebFilter {
+
+    private static final String KEY = CorrelationIdFilter.MDC_KEY;
+
+    @PostConstruct
+    void registerMdcAccessor() {
+        ContextRegistry.getInstance().registerThreadLocalAccessor(KEY,
+                () -> MDC.get(KEY), value -> MDC.put(KEY, value), () -> MDC.remove(KEY));
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String correlationId = CorrelationIdFilter.resolve(
+                exchange.getRequest().getHeaders().getFirst(CorrelationIdFilter.HEADER));
+        exchange.getResponse().getHeaders().set(CorrelationIdFilter.HEADER, correlationId);
+        return chain.filter(exchange).contextWrite(context -> context.put(KEY, correlationId));
+    }
+}
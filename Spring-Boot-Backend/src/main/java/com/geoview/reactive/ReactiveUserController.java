@@ -0,0 +1,250 @@
+package com.geoview.reactive;
+
+import com.geoview.cache.ResponseBodyCache;
+import com.geoview.country.CountryCatalog;
+import com.geoview.dto.AddFavoriteRequest;
+import com.geoview.model.FavoriteCountry;
+import com.geoview.model.User;
+import com.geoview.model.UserProfile;
+import com.geoview.model.UserView;
+import com.geoview.security.JwtUtils;
+import com.geoview.security.UserPrincipal;
+import com.geoview.service.FavoriteUpdateResult;
+import com.geoview.service.UserDetailsServiceImpl;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reactive counterpart of {@link com.geoview.controller.UserController}, with the same
+ * paths and response bodies.
+ */
+@CrossOrigin(origins = {"http://localhost:5173", "http://127.0.0.1:5173"}, allowCredentials = "true")
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/user")
+public class ReactiveUserController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveUserController.class);
+
+    // Browsers keep the body but revalidate it (conditional GET) on every use
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    @Autowired
+    private ReactiveUserService userService;
+
+    @Autowired
+    private ResponseBodyCache responseBodyCache;
+
+    @Autowired
+    private CountryCatalog countryCatalog;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @GetMapping("/profile")
+    public Mono<ResponseEntity<?>> getUserProfile(@AuthenticationPrincipal UserPrincipal userPrincipal,
+                                                  ServerWebExchange exchange) {
+        return cachedResponse(userPrincipal.getId(), ResponseBodyCache.PROFILE, exchange)
+                .switchIfEmpty(Mono.defer(() -> userService.getUserProfile(userPrincipal.getId())
+                        .flatMap(profile -> {
+                            Map<String, Object> response = new HashMap<>();
+                            response.put("success", true);
+                            response.put("user", userInfo(profile));
+                            return jsonResponse(profile, ResponseBodyCache.PROFILE, response);
+                        })
+                        .defaultIfEmpty(ResponseEntity.status(404).body(createErrorResponse("User not found")))))
+                .onErrorResume(this::serverError);
+    }
+
+    @PostMapping("/favorites")
+    public Mono<ResponseEntity<Map<String, Object>>> addFavoriteCountry(@Valid @RequestBody AddFavoriteRequest request,
+                                                                        @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        FavoriteCountry favoriteCountry = new FavoriteCountry(
+                request.getCountryCode(),
+                request.getCountryName(),
+                request.getFlagUrl()
+        );
+
+        return userService.addFavoriteCountry(userPrincipal.getId(), favoriteCountry)
+                .map(result -> {
+                    if (result.getStatus() == FavoriteUpdateResult.Status.USER_NOT_FOUND) {
+                        return ResponseEntity.status(404).body(createErrorResponse("User not found"));
+                    }
+
+                    if (result.getStatus() == FavoriteUpdateResult.Status.UNKNOWN_COUNTRY) {
+                        return ResponseEntity.status(400).body(createErrorResponse("Unknown country code"));
+                    }
+
+                    if (result.getStatus() == FavoriteUpdateResult.Status.ALREADY_EXISTS) {
+                        return ResponseEntity.status(400).body(createErrorResponse("Country already in favorites"));
+                    }
+
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("message", "Country added to favorites");
+                    response.put("favoriteCountries", result.getFavoriteCountries());
+                    return ResponseEntity.ok(response);
+                })
+                .onErrorResume(this::serverError);
+    }
+
+    @DeleteMapping("/favorites/{countryCode}")
+    public Mono<ResponseEntity<Map<String, Object>>> removeFavoriteCountry(@PathVariable String countryCode,
+                                                                           @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        return userService.removeFavoriteCountry(userPrincipal.getId(), countryCode)
+                .map(result -> {
+                    if (result.getStatus() == FavoriteUpdateResult.Status.USER_NOT_FOUND) {
+                        return ResponseEntity.status(404).body(createErrorResponse("User not found"));
+                    }
+
+                    if (result.getStatus() == FavoriteUpdateResult.Status.UNKNOWN_COUNTRY) {
+                        return ResponseEntity.status(400).body(createErrorResponse("Unknown country code"));
+                    }
+
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("message", "Country removed from favorites");
+                    response.put("favoriteCountries", result.getFavoriteCountries());
+                    return ResponseEntity.ok(response);
+                })
+                .onErrorResume(this::serverError);
+    }
+
+    @GetMapping("/getall/favorite")
+    public Mono<ResponseEntity<?>> getFavoriteCountries(@AuthenticationPrincipal UserPrincipal userPrincipal,
+                                                        ServerWebExchange exchange) {
+        return cachedResponse(userPrincipal.getId(), ResponseBodyCache.FAVORITES, exchange)
+                .switchIfEmpty(Mono.defer(() -> userService.getFavorites(userPrincipal.getId())
+                        .flatMap(favorites -> {
+                            Map<String, Object> response = new HashMap<>();
+                            response.put("success", true);
+                            response.put("favoriteCountries", countryCatalog.resolve(favorites.getFavorites()));
+                            return jsonResponse(favorites, ResponseBodyCache.FAVORITES, response);
+                        })
+                        .defaultIfEmpty(ResponseEntity.status(404).body(createErrorResponse("User not found")))))
+                .onErrorResume(this::serverError);
+    }
+
+    @PutMapping("/profile")
+    public Mono<ResponseEntity<Map<String, Object>>> updateUserProfile(@RequestBody Map<String, String> updateRequest,
+                                                                       @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        return userService.updateProfile(userPrincipal.getId(),
+                        updateRequest.get("username"), updateRequest.get("email"))
+                .map(user -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("message", "Profile updated successfully");
+                    response.put("user", userInfo(user));
+
+                    // Token-sourced principals carry username/email, so reissue the token with the new values
+                    if (userDetailsService.isTokenPrincipalSource()) {
+                        String jwt = jwtUtils.generateJwtToken(user);
+                        response.put("token", jwt);
+                        return ResponseEntity.ok()
+                                .header(HttpHeaders.SET_COOKIE, ResponseCookie.from("token", jwt)
+                                        .httpOnly(true)
+                                        .maxAge(7 * 24 * 60 * 60) // 7 days
+                                        .path("/")
+                                        .build()
+                                        .toString())
+                                .body(response);
+                    }
+
+                    return ResponseEntity.ok(response);
+                })
+                .defaultIfEmpty(ResponseEntity.status(404).body(createErrorResponse("User not found")))
+                .onErrorResume(this::serverError);
+    }
+
+    /**
+     * Answers from the cached document version alone, before the user is loaded: 304 when
+     * the client's copy is current, otherwise the pre-serialized body when one exists for
+     * this version. Completes empty when the response has to be built.
+     */
+    private Mono<ResponseEntity<?>> cachedResponse(String userId, String kind, ServerWebExchange exchange) {
+        return userService.getUserVersion(userId)
+                .flatMap(version -> {
+                    // Sets the 304 status and the ETag header when the client's copy is current
+                    if (exchange.checkNotModified(eTag(userId, version))) {
+                        return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).build());
+                    }
+                    byte[] body = responseBodyCache.get(userId, kind, version);
+                    return body != null ? Mono.just(jsonBytes(eTag(userId, version), body)) : Mono.empty();
+                });
+    }
+
+    private Mono<ResponseEntity<?>> jsonResponse(UserView user, String kind, Map<String, Object> response) {
+        return Mono.fromCallable(() -> jsonBytes(eTag(user),
+                responseBodyCache.put(user.getId(), kind, user.getVersion(), response)));
+    }
+
+    // byte[] bodies are wrapped into a buffer and written as-is
+    private static ResponseEntity<byte[]> jsonBytes(String eTag, byte[] body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(eTag)
+                .cacheControl(REVALIDATE)
+                .body(body);
+    }
+
+    private static String eTag(UserView user) {
+        return eTag(user.getId(), user.getVersion());
+    }
+
+    private static String eTag(String userId, long version) {
+        return "\"" + userId + "-" + version + "\"";
+    }
+
+    private Map<String, Object> userInfo(User user) {
+        return userInfo(user.getId(), user.getUsername(), user.getEmail(), countryCatalog.resolve(user.getFavorites()), user.getCreatedAt());
+    }
+
+    private Map<String, Object> userInfo(UserProfile profile) {
+        return userInfo(profile.getId(), profile.getUsername(), profile.getEmail(),
+                countryCatalog.resolve(profile.getFavorites()), profile.getCreatedAt());
+    }
+
+    private static Map<String, Object> userInfo(String id, String username, String email,
+                                                List<FavoriteCountry> favoriteCountries, LocalDateTime createdAt) {
+        Map<String, Object> userInfo = new HashMap<>();
+        userInfo.put("id", id);
+        userInfo.put("username", username);
+        userInfo.put("email", email);
+        userInfo.put("favoriteCountries", favoriteCountries);
+        userInfo.put("createdAt", createdAt);
+        return userInfo;
+    }
+
+    private Mono<ResponseEntity<Map<String, Object>>> serverError(Throwable e) {
+        log.error("Request failed", e);
+        return Mono.just(ResponseEntity.status(500).body(createErrorResponse("Server error: " + e.getMessage())));
+    }
+
+    private Map<String, Object> createErrorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+}
@@ -0,0 +1,29 @@
+package com.geoview.reactive;
+
+import com.geoview.model.User;
+import org.springframework.data.mongodb.core.annotation.Collation;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReactiveUserRepository extends ReactiveMongoRepository<User, String>, ReactiveUserRepositoryCustom {
+
+    Mono<User> findByUsername(String username);
+
+    @Collation(User.EMAIL_COLLATION)
+    Mono<User> findByEmail(String email);
+
+    @Query(value = "{ 'email' : ?0 }", fields = User.CREDENTIAL_FIELDS)
+    @Collation(User.EMAIL_COLLATION)
+    Mono<User> findCredentialsByEmail(String email);
+
+    @Query(value = "{ 'username' : ?0 }", fields = User.CREDENTIAL_FIELDS)
+    Mono<User> findCredentialsByUsername(String username);
+
+    Mono<Boolean> existsByUsername(String username);
+
+    @Collation(User.EMAIL_COLLATION)
+    Mono<Boolean> existsByEmail(String email);
+}
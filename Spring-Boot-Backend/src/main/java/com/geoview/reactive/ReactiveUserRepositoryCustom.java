@@ -0,0 +1,59 @@
+package com.geoview.reactive;
+
+import com.geoview.country.Country;
+import com.geoview.model.FavoriteCountrySet;
+import com.geoview.model.User;
+import com.geoview.model.UserFavorites;
+import com.geoview.model.UserProfile;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterparts of {@link com.geoview.repository.UserRepositoryCustom}.
+ */
+public interface ReactiveUserRepositoryCustom {
+
+    /**
+     * Atomically set the country's bit in the favorites bitmap unless it is already set.
+     * Emits the updated favorites, or completes empty if the user does not exist or
+     * already has the country.
+     */
+    Mono<FavoriteCountrySet> addFavoriteCountry(String userId, Country country);
+
+    /**
+     * Atomically clear the country's bit in the favorites bitmap.
+     * Emits the updated favorites, or completes empty if the user does not exist.
+     */
+    Mono<FavoriteCountrySet> removeFavoriteCountry(String userId, Country country);
+
+    /**
+     * Rebuild the user's favorites bitmap if it is missing or stale; emits whether the
+     * user was migrated.
+     */
+    Mono<Boolean> migrateFavorites(String userId);
+
+    /**
+     * Replace the stored password hash only if it still equals {@code expectedHash}.
+     */
+    Mono<Boolean> replacePasswordHash(String userId, String expectedHash, String newHash);
+
+    /**
+     * Atomically set the given profile fields (null leaves a field unchanged) and bump
+     * the document version. Emits the updated user, or completes empty if it does not exist.
+     */
+    Mono<User> updateProfile(String userId, String username, String email);
+
+    /**
+     * Read only the document version; completes empty if the user does not exist.
+     */
+    Mono<Long> findVersionById(String userId);
+
+    /**
+     * Read the user without credentials; completes empty if the user does not exist.
+     */
+    Mono<UserProfile> findProfileById(String userId);
+
+    /**
+     * Read only the favorites and the document version; completes empty if the user does not exist.
+     */
+    Mono<UserFavorites> findFavoritesById(String userId);
+}
@@ -0,0 +1,119 @@
+package com.geoview.reactive;
+
+import com.geoview.country.Country;
+import com.geoview.country.CountryCatalog;
+import com.geoview.model.FavoriteCountrySet;
+import com.geoview.model.User;
+import com.geoview.model.UserFavorites;
+import com.geoview.model.UserProfile;
+import com.geoview.repository.FavoriteQueries;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+public class ReactiveUserRepositoryImpl implements ReactiveUserRepositoryCustom {
+
+    private static final String VERSION = "version";
+    private static final String TOKEN_VERSION = "tokenVersion";
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    private CountryCatalog countryCatalog;
+
+    @Override
+    public Mono<FavoriteCountrySet> addFavoriteCountry(String userId, Country country) {
+        Mono<FavoriteCountrySet> add = Mono.defer(() -> findAndModifyFavorites(
+                FavoriteQueries.add(userId, country, countryCatalog.fingerprint()), FavoriteQueries.addUpdate(country)));
+        // No match may also mean a bitmap that still needs migrating: migrate and retry once
+        return add.switchIfEmpty(migrateFavorites(userId).flatMap(migrated -> migrated ? add : Mono.empty()));
+    }
+
+    @Override
+    public Mono<FavoriteCountrySet> removeFavoriteCountry(String userId, Country country) {
+        Mono<FavoriteCountrySet> remove = Mono.defer(() -> findAndModifyFavorites(
+                FavoriteQueries.remove(userId, countryCatalog.fingerprint()), FavoriteQueries.removeUpdate(country)));
+        return remove.switchIfEmpty(migrateFavorites(userId).flatMap(migrated -> migrated ? remove : Mono.empty()));
+    }
+
+    @Override
+    public Mono<Boolean> migrateFavorites(String userId) {
+        return Mono.defer(() -> {
+            int catalog = countryCatalog.fingerprint();
+            return mongoTemplate.findOne(FavoriteQueries.stored(userId), Document.class,
+                            mongoTemplate.getCollectionName(User.class))
+                    .flatMap(stored -> {
+                        if (FavoriteQueries.isCurrent(stored, catalog)) {
+                            return Mono.just(false);
+                        }
+                        FavoriteCountrySet favorites = countryCatalog.favoriteSet(FavoriteQueries.storedCodes(stored));
+                        return mongoTemplate.updateFirst(FavoriteQueries.stale(userId, catalog),
+                                        FavoriteQueries.migration(favorites), User.class)
+                                .thenReturn(true);
+                    })
+                    .defaultIfEmpty(false);
+        });
+    }
+
+    private Mono<FavoriteCountrySet> findAndModifyFavorites(Query query, Update update) {
+        return mongoTemplate.findAndModify(query, update,
+                        FindAndModifyOptions.options().returnNew(true),
+                        User.class)
+                .mapNotNull(User::getFavorites);
+    }
+
+    @Override
+    public Mono<Boolean> replacePasswordHash(String userId, String expectedHash, String newHash) {
+        Query query = Query.query(where("_id").is(userId).and("password").is(expectedHash));
+        return mongoTemplate.updateFirst(query, Update.update("password", newHash), User.class)
+                .map(result -> result.getModifiedCount() > 0);
+    }
+
+    @Override
+    public Mono<User> updateProfile(String userId, String username, String email) {
+        // Tokens carry username and email, so the ones issued before this change are revoked
+        Update update = new Update().inc(VERSION, 1).inc(TOKEN_VERSION, 1);
+        if (username != null) {
+            update.set("username", username);
+        }
+        if (email != null) {
+            update.set("email", email);
+        }
+        return mongoTemplate.findAndModify(Query.query(where("_id").is(userId)), update,
+                FindAndModifyOptions.options().returnNew(true),
+                User.class);
+    }
+
+    @Override
+    public Mono<Long> findVersionById(String userId) {
+        Query query = Query.query(where("_id").is(userId));
+        query.fields().include(VERSION);
+        return mongoTemplate.findOne(query, User.class).map(User::getVersion);
+    }
+
+    @Override
+    public Mono<UserProfile> findProfileById(String userId) {
+        Query query = Query.query(where("_id").is(userId));
+        query.fields().include(UserProfile.FIELDS);
+        Mono<UserProfile> read = mongoTemplate.findOne(query, UserProfile.class, mongoTemplate.getCollectionName(User.class));
+        // Legacy documents have no bitmap yet: migrate on first read
+        return read.flatMap(profile -> profile.getFavorites() != null ? Mono.just(profile)
+                : migrateFavorites(userId).flatMap(migrated -> migrated ? read : Mono.just(profile)));
+    }
+
+    @Override
+    public Mono<UserFavorites> findFavoritesById(String userId) {
+        Query query = Query.query(where("_id").is(userId));
+        query.fields().include(UserFavorites.FIELDS);
+        Mono<UserFavorites> read = mongoTemplate.findOne(query, UserFavorites.class, mongoTemplate.getCollectionName(User.class));
+        return read.flatMap(favorites -> favorites.getFavorites() != null ? Mono.just(favorites)
+                : migrateFavorites(userId).flatMap(migrated -> migrated ? read : Mono.just(favorites)));
+    }
+}
@@ -0,0 +1,271 @@
+package com.geoview.reactive;
+
+import com.geoview.cache.CacheInvalidationBroadcaster;
+import com.geoview.cache.CacheNames;
+import com.geoview.cache.CacheReplayQueue;
+import com.geoview.cache.CacheTags;
+import com.geoview.cache.JitteredTtl;
+import com.geoview.cache.RedisCircuitBreaker;
+import com.geoview.cache.RedisKeyScanner;
+import com.geoview.cache.ResponseBodyCache;
+import com.geoview.country.CountryCatalog;
+import com.geoview.model.FavoriteCountry;
+import com.geoview.model.User;
+import com.geoview.model.UserFavorites;
+import com.geoview.model.UserProfile;
+import com.geoview.service.AccountAvailabilityService;
+import com.geoview.service.FavoriteUpdateResult;
+import com.geoview.service.UserDetailsServiceImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Reactive counterpart of {@link com.geoview.service.UserService}: the same cache
+ * entries (same keys, serializer and TTL as the RedisCacheManager) read and written
+ * without blocking.
+ *
+ * Redis failures degrade to database reads instead of failing the request, and count
+ * towards the same {@link RedisCircuitBreaker} as the servlet caches. Entries are
+ * tagged like the servlet ones ({@link CacheTags}); writes invalidate the user's tag
+ * and publish the same invalidation messages as the servlet stack, so near caches on
+ * servlet nodes drop their copies too.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveUserService.class);
+
+    @Autowired
+    private ReactiveUserRepository userRepository;
+
+    @Autowired
+    private ReactiveRedisTemplate<String, Object> reactiveCacheRedisTemplate;
+
+    @Autowired
+    private ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+
+    @Autowired
+    private CacheInvalidationBroadcaster cacheInvalidationBroadcaster;
+
+    @Autowired
+    private JitteredTtl cacheEntryTtl;
+
+    @Autowired
+    private RedisCircuitBreaker redisCircuitBreaker;
+
+    @Autowired
+    private CacheReplayQueue cacheReplayQueue;
+
+    @Autowired
+    private CacheTags cacheTags;
+
+    @Autowired
+    private ResponseBodyCache responseBodyCache;
+
+    @Autowired
+    private CountryCatalog countryCatalog;
+
+    @Autowired
+    private AccountAvailabilityService accountAvailabilityService;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    /**
+     * Get the user profile (no credentials) through the userProfileView cache
+     */
+    public Mono<UserProfile> getUserProfile(String userId) {
+        return cached(CacheNames.USER_PROFILE, userId, UserProfile.class, () -> userRepository.findProfileById(userId));
+    }
+
+    /**
+     * Get only the user's favorites and document version through the userFavorites cache
+     */
+    public Mono<UserFavorites> getFavorites(String userId) {
+        return cached(CacheNames.USER_FAVORITES, userId, UserFavorites.class, () -> userRepository.findFavoritesById(userId));
+    }
+
+    /**
+     * Get the user's document version through the userVersion cache (answers
+     * conditional GETs without loading the user)
+     */
+    public Mono<Long> getUserVersion(String userId) {
+        return cached(CacheNames.USER_VERSION, userId, Long.class, () -> userRepository.findVersionById(userId));
+    }
+
+    /**
+     * Add favorite country and evict user cache
+     * Single atomic update: the country's bit is set only if it is still clear
+     * Name and flag come from the country catalog, not from the request
+     */
+    public Mono<FavoriteUpdateResult> addFavoriteCountry(String userId, FavoriteCountry favoriteCountry) {
+        return countryCatalog.findByCode(favoriteCountry.getCountryCode())
+                .map(country -> userRepository.addFavoriteCountry(userId, country)
+                        // Only an update changed anything worth evicting
+                        .flatMap(favorites -> evictUser(userId)
+                                .thenReturn(FavoriteUpdateResult.updated(countryCatalog.resolve(favorites))))
+                        .switchIfEmpty(Mono.defer(() -> userRepository.existsById(userId)
+                                .map(exists -> exists
+                                        ? FavoriteUpdateResult.alreadyExists()
+                                        : FavoriteUpdateResult.userNotFound()))))
+                .orElse(Mono.just(FavoriteUpdateResult.unknownCountry()));
+    }
+
+    /**
+     * Remove favorite country and evict user cache
+     */
+    public Mono<FavoriteUpdateResult> removeFavoriteCountry(String userId, String countryCode) {
+        return countryCatalog.findByCode(countryCode)
+                .map(country -> userRepository.removeFavoriteCountry(userId, country)
+                        .flatMap(favorites -> evictUser(userId)
+                                .thenReturn(FavoriteUpdateResult.updated(countryCatalog.resolve(favorites))))
+                        .defaultIfEmpty(FavoriteUpdateResult.userNotFound()))
+                .orElse(Mono.just(FavoriteUpdateResult.unknownCountry()));
+    }
+
+    /**
+     * Save the user and evict its cache entries
+     */
+    public Mono<User> saveUser(User user) {
+        user.setVersion(user.getVersion() + 1);
+        return userRepository.save(user)
+                .flatMap(saved -> evictUser(saved.getId()).thenReturn(saved));
+    }
+
+    /**
+     * Update username and/or email (null leaves a field unchanged) in one atomic update
+     * that bumps the document and token versions, evict user cache and refresh the principal
+     */
+    public Mono<User> updateProfile(String userId, String username, String email) {
+        return userRepository.updateProfile(userId, username, email)
+                .doOnNext(updated -> accountAvailabilityService.recordTaken(username, email))
+                .flatMap(updated -> evictUser(userId).thenReturn(updated))
+                // Publishing the bumped token version is a blocking Redis call
+                .flatMap(updated -> Mono.fromRunnable(() -> userDetailsService.tokenVersionChanged(updated))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .thenReturn(updated));
+    }
+
+    /**
+     * Store a re-hashed password (bcrypt cost upgrade) if the stored hash is unchanged, and evict user cache
+     */
+    public Mono<Boolean> upgradePasswordHash(String userId, String currentHash, String newHash) {
+        return userRepository.replacePasswordHash(userId, currentHash, newHash)
+                .flatMap(replaced -> replaced ? evictUser(userId).thenReturn(true) : Mono.just(false));
+    }
+
+    /**
+     * Drop every entry tagged with the user from Redis and from every node's near cache.
+     * While the Redis circuit breaker is open, or if the invalidation fails, the tag is
+     * queued for replay.
+     */
+    public Mono<Void> evictUser(String userId) {
+        String tag = CacheTags.userTag(userId);
+        responseBodyCache.evictUsers(Set.of(userId));
+        if (!redisCircuitBreaker.tryAcquirePermission()) {
+            cacheReplayQueue.invalidateTag(tag);
+            return Mono.empty();
+        }
+        long start = System.nanoTime();
+        return reactiveStringRedisTemplate.execute(CacheTags.INVALIDATE, List.of(tag), cacheTags.invalidateArgs(List.of(tag)))
+                .doOnComplete(() -> redisCircuitBreaker.onSuccess(System.nanoTime() - start))
+                .flatMapIterable(deleted -> (List<?>) deleted)
+                .map(String::valueOf)
+                .filter(redisKey -> redisKey.contains(RedisKeyScanner.CACHE_KEY_SEPARATOR))
+                .concatMap(redisKey -> {
+                    int separator = redisKey.indexOf(RedisKeyScanner.CACHE_KEY_SEPARATOR);
+                    return reactiveStringRedisTemplate.convertAndSend(cacheInvalidationBroadcaster.getChannel(),
+                            cacheInvalidationBroadcaster.evictMessage(redisKey.substring(0, separator),
+                                    redisKey.substring(separator + RedisKeyScanner.CACHE_KEY_SEPARATOR.length())));
+                })
+                .onErrorResume(e -> {
+                    redisCircuitBreaker.onError(System.nanoTime() - start, e);
+                    log.warn("Cache invalidation failed for userId {}, queued for replay: {}", userId, e.getMessage());
+                    cacheReplayQueue.invalidateTag(tag);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * Read through the cache; while the Redis circuit breaker is open the loader is
+     * used directly and nothing is written back. A loaded value is only written once
+     * it is registered under its tag, and not kept if the tag was invalidated while it
+     * was loading ({@link CacheTags#clock()}).
+     */
+    private <T> Mono<T> cached(String cacheName, String id, Class<T> type, Supplier<Mono<T>> loader) {
+        return Mono.defer(() -> {
+            if (!redisCircuitBreaker.tryAcquirePermission()) {
+                return loader.get();
+            }
+            String key = cacheKey(cacheName, id);
+            long start = System.nanoTime();
+            return reactiveCacheRedisTemplate.opsForValue().get(key)
+                    .doOnSuccess(value -> redisCircuitBreaker.onSuccess(System.nanoTime() - start))
+                    .ofType(type)
+                    .onErrorResume(e -> {
+                        redisCircuitBreaker.onError(System.nanoTime() - start, e);
+                        log.warn("Cache read failed for {}: {}", key, e.getMessage());
+                        return Mono.empty();
+                    })
+                    .switchIfEmpty(Mono.defer(() -> invalidationClock()
+                            .flatMap(clock -> loader.get()
+                                    .flatMap(value -> store(cacheName, id, value, clock).thenReturn(value)))));
+        });
+    }
+
+    /** The invalidation clock before a load, or -1 if it cannot be read (nothing is cached then). */
+    private Mono<Long> invalidationClock() {
+        return reactiveStringRedisTemplate.opsForValue().get(CacheTags.CLOCK_KEY)
+                .map(Long::parseLong)
+                .defaultIfEmpty(0L)
+                .onErrorReturn(-1L);
+    }
+
+    /**
+     * Register a loaded value under its tag, write it, and delete it again if the tag was
+     * invalidated after {@code clock} was read. Failures only mean the value is not cached.
+     */
+    private Mono<Void> store(String cacheName, String id, Object value, long clock) {
+        if (clock < 0) {
+            return Mono.empty();
+        }
+        String key = cacheKey(cacheName, id);
+        String tag = CacheTags.tagFor(cacheName, id, value);
+        if (tag == null) {
+            return reactiveCacheRedisTemplate.opsForValue().set(key, value, cacheEntryTtl.next())
+                    .onErrorReturn(false)
+                    .then();
+        }
+        return reactiveStringRedisTemplate.execute(CacheTags.REGISTER, List.of(tag),
+                        List.of(key, String.valueOf(cacheTags.getTagTtl().toMillis()), String.valueOf(clock)))
+                .next()
+                .filter(registered -> registered == 1L)
+                .flatMap(registered -> reactiveCacheRedisTemplate.opsForValue().set(key, value, cacheEntryTtl.next()))
+                // An invalidation between registering and writing found no entry to delete yet
+                .flatMap(written -> reactiveStringRedisTemplate.execute(CacheTags.CONFIRM, List.of(tag),
+                        List.of(key, String.valueOf(clock))).next())
+                .onErrorResume(e -> {
+                    log.warn("Cache write failed for {}: {}", key, e.getMessage());
+                    return reactiveCacheRedisTemplate.delete(key).onErrorReturn(0L).thenReturn(0L);
+                })
+                .then();
+    }
+
+    private static String cacheKey(String cacheName, String key) {
+        return cacheName + RedisKeyScanner.CACHE_KEY_SEPARATOR + key;
+    }
+}
@@ -0,0 +1,84 @@
+package com.geoview.reactive;
+
+import com.geoview.cache.UserBinaryRedisSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.time.Duration;
+
+/**
+ * Infrastructure for the reactive stack, active only when the application runs as a
+ * reactive web application (profile "reactive", {@code spring.main.web-application-type=reactive}).
+ *
+ * Requests are served by Netty on an event loop. Redis is reached through Lettuce,
+ * whose single multiplexed connection needs no pool; the Jedis factory stays in place
+ * for the blocking beans that are shared with the servlet stack.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWebConfig {
+
+    @Value("${spring.data.redis.host}")
+    private String redisHost;
+
+    @Value("${spring.data.redis.port}")
+    private int redisPort;
+
+    @Value("${spring.data.redis.password:}")
+    private String redisPassword;
+
+    @Value("${spring.data.redis.timeout:2000ms}")
+    private Duration commandTimeout;
+
+    // Tomcat is on the classpath too and would otherwise be chosen for the reactive server
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public LettuceConnectionFactory reactiveRedisConnectionFactory() {
+        RedisStandaloneConfiguration redisStandaloneConfiguration = new RedisStandaloneConfiguration();
+        redisStandaloneConfiguration.setHostName(redisHost);
+        redisStandaloneConfiguration.setPort(redisPort);
+
+        if (redisPassword != null && !redisPassword.isEmpty()) {
+            redisStandaloneConfiguration.setPassword(redisPassword);
+        }
+
+        LettuceClientConfiguration clientConfiguration = LettuceClientConfiguration.builder()
+            .commandTimeout(commandTimeout)
+            .build();
+        return new LettuceConnectionFactory(redisStandaloneConfiguration, clientConfiguration);
+    }
+
+    /**
+     * Template for the application caches, with the same key format and value
+     * serializer as the RedisCacheManager so both stacks share entries.
+     */
+    @Bean
+    public ReactiveRedisTemplate<String, Object> reactiveCacheRedisTemplate(
+            LettuceConnectionFactory reactiveRedisConnectionFactory,
+            UserBinaryRedisSerializer cacheValueSerializer) {
+        RedisSerializationContext<String, Object> context = RedisSerializationContext
+            .<String, Object>newSerializationContext(new StringRedisSerializer())
+            .value(cacheValueSerializer)
+            .build();
+        return new ReactiveRedisTemplate<>(reactiveRedisConnectionFactory, context);
+    }
+
+    @Bean
+    public ReactiveStringRedisTemplate reactiveStringRedisTemplate(LettuceConnectionFactory reactiveRedisConnectionFactory) {
+        return new ReactiveStringRedisTemplate(reactiveRedisConnectionFactory);
+    }
+}
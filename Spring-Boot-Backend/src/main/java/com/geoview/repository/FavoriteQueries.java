@@ -0,0 +1,116 @@
+package com.geoview.repository;
+
+import com.geoview.country.Country;
+import com.geoview.model.FavoriteCountrySet;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Queries and updates on the favorites bitmap ({@link FavoriteCountrySet}), shared by
+ * the blocking and reactive repositories.
+ *
+ * Adds and removes flip one bit with {@code $bit} and push or pull the code in the same
+ * update; an add only matches while the bit is clear ({@code $bitsAllClear}). Both only
+ * match documents whose bitmap was computed against the current catalog, so a document
+ * that is still in the legacy {@code favoriteCountries} layout, or was written against
+ * another catalog, has to be migrated ({@link #migration}) before it can be updated.
+ */
+public final class FavoriteQueries {
+
+    public static final String FAVORITES = "favorites";
+    public static final String LEGACY_FAVORITES = "favoriteCountries";
+
+    private static final String BITS = FAVORITES + ".bits";
+    private static final String CODES = FAVORITES + ".codes";
+    private static final String CATALOG = FAVORITES + ".catalog";
+    private static final String VERSION = "version";
+
+    private FavoriteQueries() {
+    }
+
+    /** Matches the user while the country is not a favorite yet. */
+    public static Query add(String userId, Country country, int catalog) {
+        int index = country.getIndex();
+        Query query = Query.query(where("_id").is(userId)
+                .and(CATALOG).is(catalog)
+                .and(BITS + "." + FavoriteCountrySet.word(index)).bits().allClear(List.of(index & 63)));
+        query.fields().include(FAVORITES);
+        return query;
+    }
+
+    public static Update addUpdate(Country country) {
+        int index = country.getIndex();
+        Update update = new Update().push(CODES, country.getCca2()).inc(VERSION, 1);
+        update.bitwise(BITS + "." + FavoriteCountrySet.word(index)).or(FavoriteCountrySet.mask(index));
+        return update;
+    }
+
+    public static Query remove(String userId, int catalog) {
+        Query query = Query.query(where("_id").is(userId).and(CATALOG).is(catalog));
+        query.fields().include(FAVORITES);
+        return query;
+    }
+
+    public static Update removeUpdate(Country country) {
+        int index = country.getIndex();
+        Update update = new Update().pull(CODES, country.getCca2()).inc(VERSION, 1);
+        update.bitwise(BITS + "." + FavoriteCountrySet.word(index)).and(~FavoriteCountrySet.mask(index));
+        return update;
+    }
+
+    /** Reads what a migration needs: the bitmap and the legacy list. */
+    public static Query stored(String userId) {
+        Query query = Query.query(where("_id").is(userId));
+        query.fields().include(FAVORITES, LEGACY_FAVORITES);
+        return query;
+    }
+
+    /** Whether a document read with {@link #stored} has a bitmap for this catalog. */
+    public static boolean isCurrent(Document stored, int catalog) {
+        Document favorites = stored.get(FAVORITES, Document.class);
+        return favorites != null && Integer.valueOf(catalog).equals(favorites.get("catalog"));
+    }
+
+    /**
+     * Favorite codes of a document read with {@link #stored}, in insertion order: from
+     * the bitmap when there is one, otherwise from the legacy list.
+     */
+    public static List<String> storedCodes(Document stored) {
+        Document favorites = stored.get(FAVORITES, Document.class);
+        if (favorites != null) {
+            return favorites.getList("codes", String.class, Collections.emptyList());
+        }
+        List<Document> legacy = stored.getList(LEGACY_FAVORITES, Document.class, Collections.emptyList());
+        List<String> codes = new ArrayList<>(legacy.size());
+        legacy.forEach(favorite -> codes.add(favorite.getString("countryCode")));
+        return codes;
+    }
+
+    /** Matches the user while its bitmap is missing or computed against another catalog. */
+    public static Query stale(String userId, int catalog) {
+        return Query.query(where("_id").is(userId).and(CATALOG).ne(catalog));
+    }
+
+    /** Matches every user whose bitmap is missing or computed against another catalog. */
+    public static Query stale(int catalog) {
+        Query query = Query.query(where(CATALOG).ne(catalog));
+        query.fields().include("_id");
+        return query;
+    }
+
+    /** Replaces the stored favorites with the given bitmap and drops the legacy list. */
+    public static Update migration(FavoriteCountrySet favorites) {
+        Document value = new Document("bits", Arrays.stream(favorites.getBits()).boxed().toList())
+                .append("codes", favorites.getCodes())
+                .append("catalog", favorites.getCatalog());
+        return new Update().set(FAVORITES, value).unset(LEGACY_FAVORITES);
+    }
+}
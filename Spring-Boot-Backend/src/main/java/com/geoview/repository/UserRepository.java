@@ -1,18 +1,35 @@
 package com.geoview.repository;
 
 import com.geoview.model.User;
+import org.springframework.data.mongodb.core.annotation.Collation;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends MongoRepository<User, String> {
+public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {
     
     Optional<User> findByUsername(String username);
     
+    @Collation(User.EMAIL_COLLATION)
     Optional<User> findByEmail(String email);
     
+    /**
+     * Login lookup: only the credential fields ({@link User#CREDENTIAL_FIELDS}).
+     */
+    @Query(value = "{ 'email' : ?0 }", fields = User.CREDENTIAL_FIELDS)
+    @Collation(User.EMAIL_COLLATION)
+    Optional<User> findCredentialsByEmail(String email);
+    
+    @Query(value = "{ 'username' : ?0 }", fields = User.CREDENTIAL_FIELDS)
+    Optional<User> findCredentialsByUsername(String username);
+    
+    @Query(value = "{ '_id' : ?0 }", fields = User.CREDENTIAL_FIELDS)
+    Optional<User> findCredentialsById(String id);
+    
     Boolean existsByUsername(String username);
     
+    @Collation(User.EMAIL_COLLATION)
     Boolean existsByEmail(String email);
 }
\ No newline at end of file
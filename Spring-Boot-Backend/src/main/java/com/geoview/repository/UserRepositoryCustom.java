@@ -0,0 +1,66 @@
+package com.geoview.repository;
+
+import com.geoview.country.Country;
+import com.geoview.model.FavoriteCountrySet;
+import com.geoview.model.User;
+import com.geoview.model.UserFavorites;
+import com.geoview.model.UserProfile;
+
+/**
+ * Single-round-trip updates on the users collection that Spring Data
+ * cannot derive from method names.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Atomically set the country's bit in the favorites bitmap unless it is already set.
+     * Returns the updated favorites, or null if the user does not exist or
+     * already has the country.
+     */
+    FavoriteCountrySet addFavoriteCountry(String userId, Country country);
+
+    /**
+     * Atomically clear the country's bit in the favorites bitmap.
+     * Returns the updated favorites, or null if the user does not exist.
+     */
+    FavoriteCountrySet removeFavoriteCountry(String userId, Country country);
+
+    /**
+     * Rebuild the user's favorites bitmap against the current catalog if it is missing
+     * (legacy {@code favoriteCountries} list) or was computed against another catalog.
+     * Returns whether the user was migrated.
+     */
+    boolean migrateFavorites(String userId);
+
+    /**
+     * Replace the stored password hash only if it still equals {@code expectedHash},
+     * so a concurrent password change is never overwritten. Returns whether it was replaced.
+     */
+    boolean replacePasswordHash(String userId, String expectedHash, String newHash);
+
+    /**
+     * Atomically set the given profile fields (null leaves a field unchanged) and bump
+     * the document version. Returns the updated user, or null if the user does not exist.
+     */
+    User updateProfile(String userId, String username, String email);
+
+    /**
+     * Read only the document version. Returns null if the user does not exist.
+     */
+    Long findVersionById(String userId);
+
+    /**
+     * Read the user without credentials. Returns null if the user does not exist.
+     */
+    UserProfile findProfileById(String userId);
+
+    /**
+     * Read the user without credentials by username. Returns null if there is none.
+     */
+    UserProfile findProfileByUsername(String username);
+
+    /**
+     * Read only the favorites and the document version. Returns null if the user does not exist.
+     */
+    UserFavorites findFavoritesById(String userId);
+}
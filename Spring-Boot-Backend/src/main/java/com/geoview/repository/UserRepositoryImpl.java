@@ -0,0 +1,136 @@
+package com.geoview.repository;
+
+import com.geoview.country.Country;
+import com.geoview.country.CountryCatalog;
+import com.geoview.model.FavoriteCountrySet;
+import com.geoview.model.User;
+import com.geoview.model.UserFavorites;
+import com.geoview.model.UserProfile;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    private static final String VERSION = "version";
+    private static final String TOKEN_VERSION = "tokenVersion";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CountryCatalog countryCatalog;
+
+    @Override
+    public FavoriteCountrySet addFavoriteCountry(String userId, Country country) {
+        FavoriteCountrySet added = findAndModifyFavorites(
+                FavoriteQueries.add(userId, country, countryCatalog.fingerprint()), FavoriteQueries.addUpdate(country));
+        // No match may also mean a bitmap that still needs migrating: migrate and retry once
+        if (added == null && migrateFavorites(userId)) {
+            added = findAndModifyFavorites(
+                    FavoriteQueries.add(userId, country, countryCatalog.fingerprint()), FavoriteQueries.addUpdate(country));
+        }
+        return added;
+    }
+
+    @Override
+    public FavoriteCountrySet removeFavoriteCountry(String userId, Country country) {
+        FavoriteCountrySet removed = findAndModifyFavorites(
+                FavoriteQueries.remove(userId, countryCatalog.fingerprint()), FavoriteQueries.removeUpdate(country));
+        if (removed == null && migrateFavorites(userId)) {
+            removed = findAndModifyFavorites(
+                    FavoriteQueries.remove(userId, countryCatalog.fingerprint()), FavoriteQueries.removeUpdate(country));
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean migrateFavorites(String userId) {
+        int catalog = countryCatalog.fingerprint();
+        Document stored = mongoTemplate.findOne(FavoriteQueries.stored(userId), Document.class,
+                mongoTemplate.getCollectionName(User.class));
+        if (stored == null || FavoriteQueries.isCurrent(stored, catalog)) {
+            return false;
+        }
+        FavoriteCountrySet favorites = countryCatalog.favoriteSet(FavoriteQueries.storedCodes(stored));
+        // A concurrent migration computes the same bitmap; only stale documents are touched
+        mongoTemplate.updateFirst(FavoriteQueries.stale(userId, catalog), FavoriteQueries.migration(favorites), User.class);
+        return true;
+    }
+
+    private FavoriteCountrySet findAndModifyFavorites(Query query, Update update) {
+        User updated = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true),
+                User.class);
+        return updated != null ? updated.getFavorites() : null;
+    }
+
+    @Override
+    public boolean replacePasswordHash(String userId, String expectedHash, String newHash) {
+        Query query = Query.query(where("_id").is(userId).and("password").is(expectedHash));
+        return mongoTemplate.updateFirst(query, Update.update("password", newHash), User.class)
+                .getModifiedCount() > 0;
+    }
+
+    @Override
+    public User updateProfile(String userId, String username, String email) {
+        // Tokens carry username and email, so the ones issued before this change are revoked
+        Update update = new Update().inc(VERSION, 1).inc(TOKEN_VERSION, 1);
+        if (username != null) {
+            update.set("username", username);
+        }
+        if (email != null) {
+            update.set("email", email);
+        }
+        return mongoTemplate.findAndModify(Query.query(where("_id").is(userId)), update,
+                FindAndModifyOptions.options().returnNew(true),
+                User.class);
+    }
+
+    @Override
+    public Long findVersionById(String userId) {
+        Query query = Query.query(where("_id").is(userId));
+        query.fields().include(VERSION);
+        User user = mongoTemplate.findOne(query, User.class);
+        return user != null ? user.getVersion() : null;
+    }
+
+    @Override
+    public UserProfile findProfileById(String userId) {
+        Query query = Query.query(where("_id").is(userId));
+        query.fields().include(UserProfile.FIELDS);
+        UserProfile profile = mongoTemplate.findOne(query, UserProfile.class, mongoTemplate.getCollectionName(User.class));
+        // Legacy documents have no bitmap yet: migrate on first read
+        if (profile != null && profile.getFavorites() == null && migrateFavorites(userId)) {
+            profile = mongoTemplate.findOne(query, UserProfile.class, mongoTemplate.getCollectionName(User.class));
+        }
+        return profile;
+    }
+
+    @Override
+    public UserProfile findProfileByUsername(String username) {
+        Query query = Query.query(where("username").is(username));
+        query.fields().include(UserProfile.FIELDS);
+        UserProfile profile = mongoTemplate.findOne(query, UserProfile.class, mongoTemplate.getCollectionName(User.class));
+        if (profile != null && profile.getFavorites() == null && migrateFavorites(profile.getId())) {
+            profile = mongoTemplate.findOne(query, UserProfile.class, mongoTemplate.getCollectionName(User.class));
+        }
+        return profile;
+    }
+
+    @Override
+    public UserFavorites findFavoritesById(String userId) {
+        Query query = Query.query(where("_id").is(userId));
+        query.fields().include(UserFavorites.FIELDS);
+        UserFavorites favorites = mongoTemplate.findOne(query, UserFavorites.class, mongoTemplate.getCollectionName(User.class));
+        if (favorites != null && favorites.getFavorites() == null && migrateFavorites(userId)) {
+            favorites = mongoTemplate.findOne(query, UserFavorites.class, mongoTemplate.getCollectionName(User.class));
+        }
+        return favorites;
+    }
+}
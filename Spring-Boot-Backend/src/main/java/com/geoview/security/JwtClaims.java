@@ -0,0 +1,66 @@
+package com.geoview.security;
+
+import java.util.Date;
+
+/**
+ * Immutable view of the claims of a verified JWT.
+ * Instances are shared through the verified-token cache in {@link JwtUtils}.
+ */
+public final class JwtClaims {
+    private final String subject;
+    private final Date issuedAt;
+    private final Date expiration;
+    private final String username;
+    private final String email;
+    private final Integer tokenVersion;
+
+    public JwtClaims(String subject, Date issuedAt, Date expiration) {
+        this(subject, issuedAt, expiration, null, null, null);
+    }
+
+    public JwtClaims(String subject, Date issuedAt, Date expiration,
+                     String username, String email, Integer tokenVersion) {
+        this.subject = subject;
+        this.issuedAt = issuedAt;
+        this.expiration = expiration;
+        this.username = username;
+        this.email = email;
+        this.tokenVersion = tokenVersion;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public Date getIssuedAt() {
+        return issuedAt;
+    }
+
+    public Date getExpiration() {
+        return expiration;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Integer getTokenVersion() {
+        return tokenVersion;
+    }
+
+    /**
+     * Whether the token carries enough identity claims to build a principal
+     * without loading the user. Tokens issued before these claims existed do not.
+     */
+    public boolean hasIdentity() {
+        return username != null && email != null && tokenVersion != null;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return expiration != null && expiration.getTime() <= nowMillis;
+    }
+}
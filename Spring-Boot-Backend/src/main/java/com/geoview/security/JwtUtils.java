@@ -1,59 +1,204 @@
 package com.geoview.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
+import com.geoview.model.User;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtUtils {
-    
+
+    private static final Logger log = LoggerFactory.getLogger(JwtUtils.class);
+
+    static final String CLAIM_USERNAME = "username";
+    static final String CLAIM_EMAIL = "email";
+    static final String CLAIM_TOKEN_VERSION = "tv";
+
     @Value("${geoview.app.jwtSecret}")
     private String jwtSecret;
-    
+
     @Value("${geoview.app.jwtExpirationMs}")
     private int jwtExpirationMs;
-    
+
+    @Value("${geoview.app.jwtCacheMaxSize:10000}")
+    private long jwtCacheMaxSize;
+
+    // Optional so the class can be built outside the container (benchmarks)
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private SecretKey key;
+
+    private JwtParser parser;
+
+    /**
+     * Recently verified tokens keyed by the SHA-256 of the token.
+     * Each entry lives until the token's own expiry, so a cache hit never
+     * accepts a token the parser would reject as expired.
+     */
+    private Cache<ByteBuffer, JwtClaims> verifiedTokens;
+
+    /** Validation time by outcome: served from the verified-token cache, verified, or rejected. */
+    private Timer cachedTimer;
+    private Timer validTimer;
+    private Timer invalidTimer;
+
+    @PostConstruct
+    void init() {
+        MeterRegistry registry = meterRegistry != null ? meterRegistry : Metrics.globalRegistry;
+        cachedTimer = validationTimer(registry, "cached");
+        validTimer = validationTimer(registry, "valid");
+        invalidTimer = validationTimer(registry, "invalid");
+
+        key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(key).build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(jwtCacheMaxSize)
+                .expireAfter(new Expiry<ByteBuffer, JwtClaims>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer tokenHash, JwtClaims claims, long currentTime) {
+                        return remainingNanos(claims);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer tokenHash, JwtClaims claims, long currentTime,
+                                                  long currentDuration) {
+                        return remainingNanos(claims);
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer tokenHash, JwtClaims claims, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
     public String generateJwtToken(String userId) {
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-        
+        Date now = new Date();
+
         return Jwts.builder()
                 .setSubject(userId)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + jwtExpirationMs))
                 .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
-    
-    public String getUserIdFromJwtToken(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-        
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
-    }
-    
-    public boolean validateJwtToken(String authToken) {
+
+    /**
+     * Generate a token that also carries the user's identity claims, so the
+     * filter can authenticate it without a database read in token mode.
+     */
+    public String generateJwtToken(User user) {
+        Date now = new Date();
+
+        return Jwts.builder()
+                .setSubject(user.getId())
+                .claim(CLAIM_USERNAME, user.getUsername())
+                .claim(CLAIM_EMAIL, user.getEmail())
+                .claim(CLAIM_TOKEN_VERSION, user.getTokenVersion())
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + jwtExpirationMs))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    /**
+     * Verify the token and return its claims in a single pass.
+     * Returns null when the token is malformed, expired, unsupported or empty.
+     */
+    public JwtClaims parseToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        ByteBuffer tokenHash = hash(token);
+        JwtClaims cached = verifiedTokens.getIfPresent(tokenHash);
+        if (cached != null && !cached.isExpired(System.currentTimeMillis())) {
+            cachedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return cached;
+        }
+
         try {
-            SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(authToken);
-            return true;
+            Claims body = parser.parseClaimsJws(token).getBody();
+            Number tokenVersion = body.get(CLAIM_TOKEN_VERSION, Number.class);
+            JwtClaims claims = new JwtClaims(
+                    body.getSubject(),
+                    body.getIssuedAt(),
+                    body.getExpiration(),
+                    body.get(CLAIM_USERNAME, String.class),
+                    body.get(CLAIM_EMAIL, String.class),
+                    tokenVersion != null ? tokenVersion.intValue() : null);
+            if (claims.getExpiration() != null) {
+                verifiedTokens.put(tokenHash, claims);
+            }
+            validTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return claims;
         } catch (MalformedJwtException e) {
-            System.err.println("Invalid JWT token: " + e.getMessage());
+            log.warn("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
-            System.err.println("JWT token is expired: " + e.getMessage());
+            log.debug("JWT token is expired: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
-            System.err.println("JWT token is unsupported: " + e.getMessage());
+            log.warn("JWT token is unsupported: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
-            System.err.println("JWT claims string is empty: " + e.getMessage());
+            log.warn("JWT claims string is empty: {}", e.getMessage());
+        } catch (JwtException e) {
+            log.warn("JWT signature is invalid: {}", e.getMessage());
+        }
+
+        invalidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return null;
+    }
+
+    public String getUserIdFromJwtToken(String token) {
+        JwtClaims claims = parseToken(token);
+        return claims != null ? claims.getSubject() : null;
+    }
+
+    public boolean validateJwtToken(String authToken) {
+        return parseToken(authToken) != null;
+    }
+
+    private static Timer validationTimer(MeterRegistry registry, String result) {
+        return Timer.builder("geoview.jwt.validation")
+                .description("JWT verification time")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static long remainingNanos(JwtClaims claims) {
+        long remainingMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMs));
+    }
+
+    private static ByteBuffer hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
-        
-        return false;
     }
-}
\ No newline at end of file
+}
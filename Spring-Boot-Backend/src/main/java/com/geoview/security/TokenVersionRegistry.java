@@ -0,0 +1,85 @@
+package com.geoview.security;
+
+import com.geoview.cache.RedisCircuitBreaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * The current token version of each user, shared by all nodes through Redis, so a
+ * token-mode principal issued before a profile change is rejected everywhere, not only
+ * on the node that made the change.
+ *
+ * A version is only published once it is bumped and kept as long as a token can live;
+ * users without an entry have never revoked a token. Calls go through the Redis
+ * circuit breaker: while Redis is unavailable, {@link #current} answers null and
+ * callers fall back to what this node knows.
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenVersionRegistry.class);
+
+    static final String KEY_PREFIX = "tokenVersion:";
+
+    /** KEYS[1] = version key, ARGV[1] = version, ARGV[2] = TTL in ms. Never lowers a stored version. */
+    private static final RedisScript<Long> RAISE = new DefaultRedisScript<>(
+            "local current = tonumber(redis.call('GET', KEYS[1]) or '-1') "
+            + "if tonumber(ARGV[1]) > current then redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) end "
+            + "return 1",
+            Long.class);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisCircuitBreaker circuitBreaker;
+
+    @Value("${geoview.app.jwtExpirationMs}")
+    private long jwtExpirationMs;
+
+    /**
+     * Record that tokens of the user older than {@code version} are no longer valid.
+     */
+    public void publish(String userId, int version) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            log.warn("Redis unavailable, token version {} of userId {} only applies on this node", version, userId);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            redisTemplate.execute(RAISE, List.of(KEY_PREFIX + userId),
+                String.valueOf(version), String.valueOf(jwtExpirationMs));
+            circuitBreaker.onSuccess(System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            circuitBreaker.onError(System.nanoTime() - start, e);
+            log.warn("Could not publish token version {} of userId {}: {}", version, userId, e.getMessage());
+        }
+    }
+
+    /**
+     * The user's current token version, 0 when none was ever published, or null when
+     * Redis cannot be asked.
+     */
+    public Integer current(String userId) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            String stored = redisTemplate.opsForValue().get(KEY_PREFIX + userId);
+            circuitBreaker.onSuccess(System.nanoTime() - start);
+            return stored != null ? Integer.valueOf(stored) : 0;
+        } catch (RuntimeException e) {
+            circuitBreaker.onError(System.nanoTime() - start, e);
+            return null;
+        }
+    }
+}
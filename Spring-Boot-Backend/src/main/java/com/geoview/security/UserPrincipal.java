@@ -1,6 +1,7 @@
 package com.geoview.security;
 
 import com.geoview.model.User;
+import com.geoview.model.UserProfile;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
@@ -12,12 +13,18 @@ public class UserPrincipal implements UserDetails {
     private String username;
     private String email;
     private String password;
+    private int tokenVersion;
     
     public UserPrincipal(String id, String username, String email, String password) {
+        this(id, username, email, password, 0);
+    }
+    
+    public UserPrincipal(String id, String username, String email, String password, int tokenVersion) {
         this.id = id;
         this.username = username;
         this.email = email;
         this.password = password;
+        this.tokenVersion = tokenVersion;
     }
     
     public static UserPrincipal create(User user) {
@@ -25,7 +32,35 @@ public class UserPrincipal implements UserDetails {
             user.getId(),
             user.getUsername(),
             user.getEmail(),
-            user.getPassword()
+            user.getPassword(),
+            user.getTokenVersion()
+        );
+    }
+    
+    /**
+     * Build a principal from a cached profile; profiles carry no password, so neither does the principal.
+     */
+    public static UserPrincipal create(UserProfile profile) {
+        return new UserPrincipal(
+            profile.getId(),
+            profile.getUsername(),
+            profile.getEmail(),
+            null,
+            profile.getTokenVersion()
+        );
+    }
+    
+    /**
+     * Build a principal straight from verified token claims, without a database read.
+     * The password is not part of the token, so the principal carries none.
+     */
+    public static UserPrincipal fromClaims(JwtClaims claims) {
+        return new UserPrincipal(
+            claims.getSubject(),
+            claims.getUsername(),
+            claims.getEmail(),
+            null,
+            claims.getTokenVersion()
         );
     }
     
@@ -37,6 +72,10 @@ public class UserPrincipal implements UserDetails {
         return email;
     }
     
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+    
     @Override
     public String getUsername() {
         return username;
@@ -0,0 +1,192 @@
+package com.geoview.service;
+
+import com.geoview.model.User;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Answers "is this username/email free?" for the sign-up form from in-memory
+ * Bloom filters, so most keystroke checks never reach MongoDB. A negative
+ * filter answer means no user with that value was known to this node; a
+ * positive one is confirmed with a single exists query.
+ *
+ * The filters are rebuilt from the users collection once the application is
+ * ready and then every {@code availabilityRebuildIntervalMs}, and updated on every
+ * registration and username/email change handled by this node. Registrations and
+ * changes on other nodes are picked up by the next rebuild, so the answer is a hint
+ * for the UI; the unique indexes remain the authority at insert time.
+ */
+@Service
+public class AccountAvailabilityService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountAvailabilityService.class);
+
+    public static final String FIELD_USERNAME = "username";
+    public static final String FIELD_EMAIL = "email";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${geoview.auth.availabilityExpectedUsers:100000}")
+    private long expectedUsers;
+
+    @Value("${geoview.auth.availabilityFalsePositiveRate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${geoview.auth.availabilityRebuildIntervalMs:300000}")
+    private long rebuildIntervalMs;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "availability-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Null until the first rebuild completes; lookups go to the database meanwhile
+    private volatile Filters filters;
+
+    // The filters being rebuilt; values recorded meanwhile go into both
+    private volatile Filters rebuilding;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::rebuild, 0, rebuildIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        try {
+            long userCount = mongoTemplate.getCollection("users").estimatedDocumentCount();
+            long capacity = Math.max(expectedUsers, userCount * 2);
+            Filters rebuilt = new Filters(new BloomFilter(capacity, falsePositiveRate),
+                                          new BloomFilter(capacity, falsePositiveRate));
+            // Set before streaming: a value recorded after this is added directly, one
+            // recorded before it was already written and is returned by the stream
+            rebuilding = rebuilt;
+
+            Query query = new Query();
+            query.fields().include(FIELD_USERNAME).include(FIELD_EMAIL).exclude("_id");
+            try (Stream<Document> users = mongoTemplate.stream(query, Document.class, "users")) {
+                users.forEach(user -> rebuilt.add(user.getString(FIELD_USERNAME), user.getString(FIELD_EMAIL)));
+            }
+
+            filters = rebuilt;
+            log.debug("Availability filters rebuilt with {} users in {} ms",
+                rebuilt.usernames.insertions(), System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            log.warn("Could not rebuild availability filters: {}", e.getMessage());
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    /**
+     * Record a username and/or email that was just taken, by a registration or a profile
+     * change, so later checks on this node see it as taken. Null values are skipped.
+     */
+    public void recordTaken(String username, String email) {
+        Filters current = filters;
+        if (current != null) {
+            current.add(username, email);
+        }
+        Filters next = rebuilding;
+        if (next != null && next != current) {
+            next.add(username, email);
+        }
+    }
+
+    public boolean isUsernameAvailable(String username) {
+        return isUsernameKnownFree(username)
+            || !mongoTemplate.exists(Query.query(Criteria.where(FIELD_USERNAME).is(username)), "users");
+    }
+
+    public boolean isEmailAvailable(String email) {
+        return isEmailKnownFree(email)
+            || !mongoTemplate.exists(Query.query(Criteria.where(FIELD_EMAIL).is(email))
+                .collation(Collation.parse(User.EMAIL_COLLATION)), "users");
+    }
+
+    /**
+     * True when the filter proves no known user has this username; false means "ask the database".
+     */
+    public boolean isUsernameKnownFree(String username) {
+        Filters current = filters;
+        return current != null && !current.usernames.mightContain(username);
+    }
+
+    /**
+     * True when the filter proves no known user has this email; false means "ask the database".
+     */
+    public boolean isEmailKnownFree(String email) {
+        Filters current = filters;
+        return current != null && !current.emails.mightContain(normalizeEmail(email));
+    }
+
+    /**
+     * Which unique field an insert collided on: {@link #FIELD_USERNAME}, {@link #FIELD_EMAIL}
+     * or null, read from the index name in the server's E11000 message.
+     */
+    public static String duplicateField(DuplicateKeyException e) {
+        String message = e.getMessage();
+        int start = message != null ? message.indexOf("index: ") : -1;
+        if (start < 0) {
+            return null;
+        }
+        int end = message.indexOf(' ', start + "index: ".length());
+        String index = message.substring(start + "index: ".length(), end > 0 ? end : message.length());
+        if (index.startsWith(FIELD_USERNAME)) {
+            return FIELD_USERNAME;
+        }
+        if (index.startsWith(FIELD_EMAIL)) {
+            return FIELD_EMAIL;
+        }
+        return null;
+    }
+
+    // Emails are compared case-insensitively, so the filter holds one form per address
+    private static String normalizeEmail(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Filters {
+        private final BloomFilter usernames;
+        private final BloomFilter emails;
+
+        private Filters(BloomFilter usernames, BloomFilter emails) {
+            this.usernames = usernames;
+            this.emails = emails;
+        }
+
+        private void add(String username, String email) {
+            if (username != null) {
+                usernames.add(username);
+            }
+            if (email != null) {
+                emails.add(normalizeEmail(email));
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.geoview.service;
+
+import com.geoview.model.FavoriteCountry;
+
+import java.util.List;
+
+/**
+ * Outcome of an atomic favorites update.
+ */
+public class FavoriteUpdateResult {
+
+    public enum Status {
+        UPDATED,
+        ALREADY_EXISTS,
+        USER_NOT_FOUND,
+        UNKNOWN_COUNTRY
+    }
+
+    private final Status status;
+    private final List<FavoriteCountry> favoriteCountries;
+
+    private FavoriteUpdateResult(Status status, List<FavoriteCountry> favoriteCountries) {
+        this.status = status;
+        this.favoriteCountries = favoriteCountries;
+    }
+
+    public static FavoriteUpdateResult updated(List<FavoriteCountry> favoriteCountries) {
+        return new FavoriteUpdateResult(Status.UPDATED, favoriteCountries);
+    }
+
+    public static FavoriteUpdateResult alreadyExists() {
+        return new FavoriteUpdateResult(Status.ALREADY_EXISTS, null);
+    }
+
+    public static FavoriteUpdateResult userNotFound() {
+        return new FavoriteUpdateResult(Status.USER_NOT_FOUND, null);
+    }
+
+    public static FavoriteUpdateResult unknownCountry() {
+        return new FavoriteUpdateResult(Status.UNKNOWN_COUNTRY, null);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public List<FavoriteCountry> getFavoriteCountries() {
+        return favoriteCountries;
+    }
+}
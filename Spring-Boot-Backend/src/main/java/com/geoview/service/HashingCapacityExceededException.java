@@ -0,0 +1,19 @@
+package com.geoview.service;
+
+/**
+ * Thrown when the password hashing pool and its queue are full.
+ * Callers should answer 429 with the suggested Retry-After.
+ */
+public class HashingCapacityExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public HashingCapacityExceededException(long retryAfterSeconds) {
+        super("Password hashing capacity exceeded");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
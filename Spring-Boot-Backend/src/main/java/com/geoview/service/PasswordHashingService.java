@@ -0,0 +1,136 @@
+package com.geoview.service;
+
+import com.geoview.logging.MdcTaskDecorator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs bcrypt hashing and verification on a dedicated, bounded pool so a login
+ * burst cannot occupy every request thread. When the pool and its queue are full,
+ * submissions fail immediately with {@link HashingCapacityExceededException}.
+ *
+ * Publishes queue depth, active workers, queue wait time, hashing time and
+ * rejections to the meter registry.
+ */
+@Service
+public class PasswordHashingService {
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MdcTaskDecorator mdcTaskDecorator;
+
+    @Value("${geoview.security.hashingThreads:0}")
+    private int hashingThreads;
+
+    @Value("${geoview.security.hashingQueueCapacity:64}")
+    private int hashingQueueCapacity;
+
+    @Value("${geoview.security.hashingRetryAfterSeconds:1}")
+    private long retryAfterSeconds;
+
+    private ThreadPoolExecutor executor;
+    private Timer waitTimer;
+    private Timer encodeTimer;
+    private Timer matchTimer;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    void init() {
+        // bcrypt is CPU-bound, so more workers than cores only adds contention
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(hashingQueueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("geoview.hashing.queue.depth", executor, pool -> pool.getQueue().size())
+            .description("Password hashing tasks waiting for a worker")
+            .register(meterRegistry);
+        Gauge.builder("geoview.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Password hashing workers currently busy")
+            .register(meterRegistry);
+        waitTimer = Timer.builder("geoview.hashing.wait")
+            .description("Time password hashing tasks spend queued")
+            .register(meterRegistry);
+        encodeTimer = Timer.builder("geoview.hashing.duration").tag("operation", "encode").register(meterRegistry);
+        matchTimer = Timer.builder("geoview.hashing.duration").tag("operation", "matches").register(meterRegistry);
+        rejectedCounter = Counter.builder("geoview.hashing.rejected")
+            .description("Password hashing tasks rejected because the queue was full")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(matchTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Whether the stored hash was made with a different cost factor than the configured one.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return encodedPassword != null && passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    private <T> CompletableFuture<T> submit(Timer timer, Supplier<T> work) {
+        long enqueuedAt = System.nanoTime();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            // Run the work and the completion with the caller's MDC: async continuations are
+            // submitted from the hashing thread and copy its MDC (correlation id)
+            executor.execute(mdcTaskDecorator.decorate(() -> {
+                waitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    future.complete(timer.record(work));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new HashingCapacityExceededException(retryAfterSeconds);
+        }
+        return future;
+    }
+}
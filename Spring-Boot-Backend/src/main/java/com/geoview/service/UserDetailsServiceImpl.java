@@ -2,31 +2,136 @@ package com.geoview.service;
 
 import com.geoview.model.User;
 import com.geoview.repository.UserRepository;
+import com.geoview.security.JwtClaims;
+import com.geoview.security.TokenVersionRegistry;
 import com.geoview.security.UserPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.CredentialsExpiredException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
-    
+
+    /** Load the principal from MongoDB, through a short-lived in-process cache. */
+    public static final String PRINCIPAL_SOURCE_CACHE = "cache";
+
+    /** Build the principal from the JWT claims alone, with no database access. */
+    public static final String PRINCIPAL_SOURCE_TOKEN = "token";
+
     @Autowired
     UserRepository userRepository;
-    
+
+    @Autowired
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Value("${geoview.app.principalSource:cache}")
+    private String principalSource;
+
+    @Value("${geoview.app.principalCacheTtlMs:60000}")
+    private long principalCacheTtlMs;
+
+    @Value("${geoview.app.principalCacheMaxSize:10000}")
+    private long principalCacheMaxSize;
+
+    /**
+     * Authentication principals by user id.
+     * Kept short-lived and evicted on profile/password changes via {@link #evictPrincipal(String)}.
+     */
+    private Cache<String, UserPrincipal> principals;
+
+    @PostConstruct
+    void init() {
+        principals = Caffeine.newBuilder()
+                .maximumSize(principalCacheMaxSize)
+                .expireAfterWrite(Duration.ofMillis(principalCacheTtlMs))
+                .build();
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        User user = userRepository.findCredentialsByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
-        
+
         return UserPrincipal.create(user);
     }
-    
+
     public UserDetails loadUserById(String id) {
-        User user = userRepository.findById(id)
+        UserPrincipal cached = principals.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        User user = userRepository.findCredentialsById(id)
                 .orElseThrow(() -> new UsernameNotFoundException("User Not Found with id: " + id));
-        
-        return UserPrincipal.create(user);
+
+        UserPrincipal principal = UserPrincipal.create(user);
+        principals.put(id, principal);
+        return principal;
+    }
+
+    /**
+     * Resolve the principal for a verified token.
+     * In token mode, tokens carrying identity claims are trusted as-is unless their version
+     * is older than the user's current one, as published in Redis by the node that bumped it
+     * (or, while Redis is unavailable, as last seen by this node). Costs one Redis read and
+     * no database access.
+     */
+    public UserDetails loadUserByClaims(JwtClaims claims) {
+        if (!PRINCIPAL_SOURCE_TOKEN.equals(principalSource) || !claims.hasIdentity()) {
+            return loadUserById(claims.getSubject());
+        }
+
+        Integer current = tokenVersionRegistry.current(claims.getSubject());
+        UserPrincipal known = principals.getIfPresent(claims.getSubject());
+        int latest = Math.max(current != null ? current : 0, known != null ? known.getTokenVersion() : 0);
+        if (latest > claims.getTokenVersion()) {
+            throw new CredentialsExpiredException("Token version is no longer valid for user: " + claims.getSubject());
+        }
+
+        return UserPrincipal.fromClaims(claims);
+    }
+
+    public boolean isTokenPrincipalSource() {
+        return PRINCIPAL_SOURCE_TOKEN.equals(principalSource);
+    }
+
+    /**
+     * Drop the cached principal after a profile or password change.
+     */
+    public void evictPrincipal(String id) {
+        if (id != null) {
+            principals.invalidate(id);
+        }
+    }
+
+    /**
+     * After a change that bumped the user's token version (username or email): refresh
+     * the cached principal and publish the version, so tokens issued before the change
+     * are rejected on every node.
+     */
+    public void tokenVersionChanged(User user) {
+        refreshPrincipal(user);
+        if (user != null && user.getId() != null) {
+            tokenVersionRegistry.publish(user.getId(), user.getTokenVersion());
+        }
+    }
+
+    /**
+     * Replace the cached principal with the user's current state, so token-mode
+     * checks on this node see a bumped token version immediately.
+     */
+    public void refreshPrincipal(User user) {
+        if (user != null && user.getId() != null) {
+            principals.put(user.getId(), UserPrincipal.create(user));
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,17 @@
 package com.geoview.service;
 
+import com.geoview.cache.CacheNames;
+import com.geoview.cache.UserCacheInvalidator;
+import com.geoview.country.Country;
+import com.geoview.country.CountryCatalog;
 import com.geoview.model.FavoriteCountry;
+import com.geoview.model.FavoriteCountrySet;
 import com.geoview.model.User;
+import com.geoview.model.UserFavorites;
+import com.geoview.model.UserProfile;
 import com.geoview.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
@@ -13,77 +22,156 @@ import java.util.Optional;
 @Service
 public class UserService {
 
+    private static final Logger log = LoggerFactory.getLogger(UserService.class);
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private UserCacheInvalidator userCacheInvalidator;
+
+    @Autowired
+    private CountryCatalog countryCatalog;
+
+    @Autowired
+    private AccountAvailabilityService accountAvailabilityService;
+
     /**
-     * Get user profile with caching
-     * Cache key: user:profile:{userId}
-     * TTL: 10 minutes (configured in RedisConfig)
+     * Get user profile (no credentials) with caching
+     * Cache key: userProfileView::{userId}
+     * TTL: spring.cache.redis.time-to-live minus jitter (configured in RedisConfig)
+     * Synchronized: concurrent misses for one user share a single database read
      */
-    @Cacheable(value = "userProfile", key = "#userId")
-    public Optional<User> getUserById(String userId) {
-        System.out.println("Fetching user from database for userId: " + userId);
-        return userRepository.findById(userId);
+    @Cacheable(value = CacheNames.USER_PROFILE, key = "#userId", sync = true)
+    public Optional<UserProfile> getUserProfile(String userId) {
+        log.debug("Fetching user profile from database for userId: {}", userId);
+        return Optional.ofNullable(userRepository.findProfileById(userId));
     }
 
     /**
-     * Get user by username with caching
-     * Cache key: user:username:{username}
+     * Get user profile (no credentials) by username with caching
+     * Cache key: userProfileByUsername::{username}
      */
-    @Cacheable(value = "userByUsername", key = "#username")
-    public Optional<User> getUserByUsername(String username) {
-        System.out.println("Fetching user from database for username: " + username);
-        return userRepository.findByUsername(username);
+    @Cacheable(value = CacheNames.USER_BY_USERNAME, key = "#username", sync = true)
+    public Optional<UserProfile> getUserProfileByUsername(String username) {
+        log.debug("Fetching user profile from database for username: {}", username);
+        return Optional.ofNullable(userRepository.findProfileByUsername(username));
+    }
+
+    /**
+     * Get only the user's favorites and document version with caching
+     * Cache key: userFavorites::{userId}
+     */
+    @Cacheable(value = CacheNames.USER_FAVORITES, key = "#userId", sync = true)
+    public Optional<UserFavorites> getFavorites(String userId) {
+        log.debug("Fetching favorites from database for userId: {}", userId);
+        return Optional.ofNullable(userRepository.findFavoritesById(userId));
+    }
+
+    /**
+     * Get the user's document version with caching (answers conditional GETs
+     * without loading the user)
+     * Cache key: userVersion::{userId}
+     * Synchronized: checked on every conditional GET, so concurrent misses share one read.
+     * A missing user (null) is not cached.
+     */
+    @Cacheable(value = CacheNames.USER_VERSION, key = "#userId", sync = true)
+    public Long getUserVersion(String userId) {
+        return userRepository.findVersionById(userId);
     }
 
     /**
      * Save or update user and evict cache
-     * Clears both profile and username caches for the user
+     * Invalidates every cache entry of the user (by id and by username),
+     * and refreshes the cached authentication principal
      */
-    @CacheEvict(value = {"userProfile", "userByUsername"}, key = "#user.id")
     public User saveUser(User user) {
-        System.out.println("Saving user and evicting cache for userId: " + user.getId());
-        return userRepository.save(user);
+        log.debug("Saving user and evicting cache for userId: {}", user.getId());
+        user.setVersion(user.getVersion() + 1);
+        User saved = userRepository.save(user);
+        userCacheInvalidator.invalidate(saved.getId());
+        userDetailsService.refreshPrincipal(saved);
+        return saved;
+    }
+
+    /**
+     * Update username and/or email (null leaves a field unchanged) and evict user caches
+     * Single atomic update that also bumps the document and token versions
+     */
+    public Optional<User> updateProfile(String userId, String username, String email) {
+        log.debug("Updating profile and evicting cache for userId: {}", userId);
+        User updated = userRepository.updateProfile(userId, username, email);
+        if (updated != null) {
+            // Tag invalidation also drops the entry under the old username
+            userCacheInvalidator.invalidate(userId);
+            userDetailsService.tokenVersionChanged(updated);
+            accountAvailabilityService.recordTaken(username, email);
+        }
+        return Optional.ofNullable(updated);
+    }
+
+    /**
+     * Store a re-hashed password (bcrypt cost upgrade) and evict user caches
+     * Compare-and-set on the old hash so a concurrent password change wins
+     */
+    public boolean upgradePasswordHash(String userId, String currentHash, String newHash) {
+        boolean replaced = userRepository.replacePasswordHash(userId, currentHash, newHash);
+        if (replaced) {
+            userCacheInvalidator.invalidate(userId);
+            userDetailsService.evictPrincipal(userId);
+        }
+        return replaced;
     }
 
     /**
      * Add favorite country and evict user cache
+     * Single atomic update: the country's bit is set only if it is still clear
+     * Name and flag come from the country catalog, not from the request
      */
-    @CacheEvict(value = {"userProfile", "userByUsername"}, key = "#userId")
-    public User addFavoriteCountry(String userId, FavoriteCountry favoriteCountry) {
-        System.out.println("Adding favorite country and evicting cache for userId: " + userId);
-        Optional<User> userOptional = userRepository.findById(userId);
-        if (userOptional.isPresent()) {
-            User user = userOptional.get();
-            user.getFavoriteCountries().add(favoriteCountry);
-            return userRepository.save(user);
+    public FavoriteUpdateResult addFavoriteCountry(String userId, FavoriteCountry favoriteCountry) {
+        log.debug("Adding favorite country and evicting cache for userId: {}", userId);
+        Optional<Country> country = countryCatalog.findByCode(favoriteCountry.getCountryCode());
+        if (country.isEmpty()) {
+            return FavoriteUpdateResult.unknownCountry();
+        }
+        FavoriteCountrySet favorites = userRepository.addFavoriteCountry(userId, country.get());
+        if (favorites != null) {
+            userCacheInvalidator.invalidate(userId);
+            return FavoriteUpdateResult.updated(countryCatalog.resolve(favorites));
         }
-        return null;
+        // No match: only now pay for a lookup to tell a duplicate from a missing user
+        return userRepository.existsById(userId)
+            ? FavoriteUpdateResult.alreadyExists()
+            : FavoriteUpdateResult.userNotFound();
     }
 
     /**
      * Remove favorite country and evict user cache
+     * Single atomic update clearing the country's bit
      */
-    @CacheEvict(value = {"userProfile", "userByUsername"}, key = "#userId")
-    public User removeFavoriteCountry(String userId, String countryCode) {
-        System.out.println("Removing favorite country and evicting cache for userId: " + userId);
-        Optional<User> userOptional = userRepository.findById(userId);
-        if (userOptional.isPresent()) {
-            User user = userOptional.get();
-            user.getFavoriteCountries().removeIf(
-                country -> country.getCountryCode().equals(countryCode)
-            );
-            return userRepository.save(user);
+    public FavoriteUpdateResult removeFavoriteCountry(String userId, String countryCode) {
+        log.debug("Removing favorite country and evicting cache for userId: {}", userId);
+        Optional<Country> country = countryCatalog.findByCode(countryCode);
+        if (country.isEmpty()) {
+            return FavoriteUpdateResult.unknownCountry();
+        }
+        FavoriteCountrySet favorites = userRepository.removeFavoriteCountry(userId, country.get());
+        if (favorites == null) {
+            return FavoriteUpdateResult.userNotFound();
         }
-        return null;
+        userCacheInvalidator.invalidate(userId);
+        return FavoriteUpdateResult.updated(countryCatalog.resolve(favorites));
     }
 
     /**
      * Clear all user-related caches (for admin operations)
      */
-    @CacheEvict(value = {"userProfile", "userByUsername"}, allEntries = true)
+    @CacheEvict(value = {CacheNames.USER_PROFILE, CacheNames.USER_BY_USERNAME, CacheNames.USER_FAVORITES,
+            CacheNames.USER_VERSION}, allEntries = true)
     public void clearAllUserCaches() {
-        System.out.println("Clearing all user caches");
+        log.info("Clearing all user caches");
     }
 }
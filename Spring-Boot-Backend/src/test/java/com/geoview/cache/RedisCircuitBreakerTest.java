@@ -0,0 +1,148 @@
+package com.geoview.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedisCircuitBreakerTest {
+
+    private static final long FAST = Duration.ofMillis(1).toNanos();
+    private static final long SLOW = Duration.ofSeconds(1).toNanos();
+    private static final RuntimeException FAILURE = new RuntimeException("connection refused");
+
+    private static RedisCircuitBreaker breaker(Duration openDuration) {
+        // Window of 10 calls, at least 4 before opening, 50% failures or slow calls, 2 probes
+        return new RedisCircuitBreaker(10, 4, 0.5, 0.5, Duration.ofMillis(100), openDuration, 2);
+    }
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        RedisCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+        for (int i = 0; i < 3; i++) {
+            assertThat(breaker.tryAcquirePermission()).isTrue();
+            breaker.onError(FAST, FAILURE);
+        }
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void opensOnFailureRateAndRejectsCalls() {
+        RedisCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+        breaker.onError(FAST, FAILURE);
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+
+        breaker.onError(FAST, FAILURE);
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+        assertThat(breaker.isOpen()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+    }
+
+    @Test
+    void opensOnSlowCallRate() {
+        RedisCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(SLOW);
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(SLOW);
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void oldOutcomesSlideOutOfTheWindow() {
+        RedisCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+        breaker.onError(FAST, FAILURE);
+        for (int i = 0; i < 10; i++) {
+            breaker.onSuccess(FAST);
+        }
+        // The early failure has left the window, so four new ones stay below half of ten
+        for (int i = 0; i < 4; i++) {
+            breaker.onError(FAST, FAILURE);
+        }
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+        breaker.onError(FAST, FAILURE);
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void halfOpenHandsOutProbesAndClosesWhenTheySucceed() {
+        RedisCircuitBreaker breaker = breaker(Duration.ZERO);
+        AtomicInteger closed = new AtomicInteger();
+        breaker.addCloseListener(closed::incrementAndGet);
+        open(breaker);
+
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+
+        breaker.onSuccess(FAST);
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.HALF_OPEN);
+        breaker.onSuccess(FAST);
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+        assertThat(closed).hasValue(1);
+    }
+
+    @Test
+    void rejectsCallsBeyondTheProbes() {
+        RedisCircuitBreaker breaker = breaker(Duration.ofMillis(500));
+        open(breaker);
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+
+        sleep(Duration.ofMillis(550));
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+    }
+
+    @Test
+    void failedOrSlowProbeReopens() {
+        RedisCircuitBreaker breaker = breaker(Duration.ZERO);
+        open(breaker);
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        breaker.onError(FAST, FAILURE);
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        breaker.onSuccess(SLOW);
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void closingStartsAFreshWindow() {
+        RedisCircuitBreaker breaker = breaker(Duration.ZERO);
+        open(breaker);
+        breaker.tryAcquirePermission();
+        breaker.tryAcquirePermission();
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+
+        // The failures that opened it are forgotten: three new ones are below minimumCalls
+        for (int i = 0; i < 3; i++) {
+            breaker.onError(FAST, FAILURE);
+        }
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+    }
+
+    private static void open(RedisCircuitBreaker breaker) {
+        for (int i = 0; i < 4; i++) {
+            breaker.onError(FAST, FAILURE);
+        }
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.geoview.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TwoLevelCacheTest {
+
+    private static final int CALLERS = 8;
+
+    private final ConcurrentMapCache l2 = new ConcurrentMapCache("users", false);
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> l1 = Caffeine.newBuilder().build();
+    private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void stopCallers() {
+        callers.shutdownNow();
+    }
+
+    private TwoLevelCache cache(CacheTags tags) {
+        return new TwoLevelCache("users", l1, l2, null, null, null, 0, tags);
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        TwoLevelCache cache = cache(null);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(callers.submit(() -> cache.get("u1", () -> {
+                loads.incrementAndGet();
+                release.await();
+                return "alice";
+            })));
+        }
+        awaitCoalesced(cache, CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("alice");
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(l1.getIfPresent("u1")).isEqualTo("alice");
+        assertThat(l2.get("u1").get()).isEqualTo("alice");
+
+        // Later reads are hits and do not load again
+        assertThat(cache.get("u1", () -> "other")).isEqualTo("alice");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void failedLoadFailsEveryWaiterAndIsNotRemembered() throws Exception {
+        TwoLevelCache cache = cache(null);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(callers.submit(() -> cache.get("u1", () -> {
+                release.await();
+                throw new IllegalStateException("mongo down");
+            })));
+        }
+        awaitCoalesced(cache, CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(Cache.ValueRetrievalException.class)
+                .hasRootCauseMessage("mongo down");
+        }
+        assertThat(cache.get("u1", () -> "alice")).isEqualTo("alice");
+    }
+
+    @Test
+    void differentKeysLoadIndependently() {
+        TwoLevelCache cache = cache(null);
+
+        assertThat(cache.get("u1", () -> "alice")).isEqualTo("alice");
+        assertThat(cache.get("u2", () -> "bob")).isEqualTo("bob");
+        assertThat(cache.coalescedLoadCount()).isZero();
+    }
+
+    @Test
+    void absentValuesAreNotCached() {
+        TwoLevelCache cache = cache(null);
+        AtomicInteger loads = new AtomicInteger();
+
+        Object absent = cache.get("u1", () -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        assertThat(absent).isNull();
+        assertThat(cache.get("u1", () -> "alice")).isEqualTo("alice");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void loadIsNotCachedWhenItsTagWasInvalidatedWhileLoading() {
+        CacheTags tags = mock(CacheTags.class);
+        when(tags.clock()).thenReturn(5L);
+        when(tags.register(eq("users"), eq("u1"), any(), eq(5L))).thenReturn(false);
+        TwoLevelCache cache = cache(tags);
+
+        assertThat(cache.get("u1", () -> "stale")).isEqualTo("stale");
+        assertThat(l1.getIfPresent("u1")).isNull();
+        assertThat(l2.get("u1")).isNull();
+    }
+
+    @Test
+    void loadIsDroppedWhenAnInvalidationLandsBeforeItIsConfirmed() {
+        CacheTags tags = mock(CacheTags.class);
+        when(tags.clock()).thenReturn(5L);
+        when(tags.register(eq("users"), eq("u1"), any(), anyLong())).thenReturn(true);
+        // CONFIRM deletes the Redis entry itself; only the near cache is checked here
+        when(tags.confirm(eq("users"), eq("u1"), any(), anyLong())).thenReturn(false);
+        TwoLevelCache cache = cache(tags);
+
+        assertThat(cache.get("u1", () -> "stale")).isEqualTo("stale");
+        assertThat(l1.getIfPresent("u1")).isNull();
+    }
+
+    @Test
+    void loadIsEvictedWhenItCannotBeConfirmed() {
+        CacheTags tags = mock(CacheTags.class);
+        when(tags.clock()).thenReturn(5L);
+        when(tags.register(eq("users"), eq("u1"), any(), anyLong())).thenReturn(true);
+        when(tags.confirm(eq("users"), eq("u1"), any(), anyLong())).thenReturn(null);
+        TwoLevelCache cache = cache(tags);
+
+        assertThat(cache.get("u1", () -> "alice")).isEqualTo("alice");
+        assertThat(l1.getIfPresent("u1")).isNull();
+        assertThat(l2.get("u1")).isNull();
+    }
+
+    @Test
+    void confirmedLoadIsCachedInBothLevels() {
+        CacheTags tags = mock(CacheTags.class);
+        when(tags.clock()).thenReturn(5L);
+        when(tags.register(eq("users"), eq("u1"), any(), eq(5L))).thenReturn(true);
+        when(tags.confirm(eq("users"), eq("u1"), any(), eq(5L))).thenReturn(true);
+        TwoLevelCache cache = cache(tags);
+
+        assertThat(cache.get("u1", () -> "alice")).isEqualTo("alice");
+        assertThat(l1.getIfPresent("u1")).isEqualTo("alice");
+        assertThat(l2.get("u1").get()).isEqualTo("alice");
+    }
+
+    @Test
+    void remoteHitIsNotCopiedLocallyWhenEvictedWhileReading() {
+        TwoLevelCache[] cache = new TwoLevelCache[1];
+        // The eviction lands after the L2 read returned the old value
+        ConcurrentMapCache racingL2 = new ConcurrentMapCache("users", false) {
+            @Override
+            public ValueWrapper get(Object key) {
+                ValueWrapper value = super.get(key);
+                cache[0].evictLocal(key);
+                return value;
+            }
+        };
+        racingL2.put("u1", "stale");
+        cache[0] = new TwoLevelCache("users", l1, racingL2, null, null, null, 0, null);
+
+        assertThat(cache[0].get("u1").get()).isEqualTo("stale");
+        assertThat(l1.getIfPresent("u1")).isNull();
+        assertThat(cache[0].get("u1", () -> "alice")).isEqualTo("stale");
+        assertThat(l1.getIfPresent("u1")).isNull();
+    }
+
+    @Test
+    void remoteHitIsCopiedLocally() {
+        l2.put("u1", "alice");
+        TwoLevelCache cache = cache(null);
+
+        assertThat(cache.get("u1").get()).isEqualTo("alice");
+        assertThat(l1.getIfPresent("u1")).isEqualTo("alice");
+    }
+
+    private static void awaitCoalesced(TwoLevelCache cache, int waiters) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (cache.coalescedLoadCount() < waiters && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(cache.coalescedLoadCount()).isEqualTo(waiters);
+    }
+}
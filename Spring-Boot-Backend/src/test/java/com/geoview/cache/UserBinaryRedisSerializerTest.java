@@ -0,0 +1,272 @@
+package com.geoview.cache;
+
+import com.geoview.config.RedisConfig;
+import com.geoview.model.FavoriteCountrySet;
+import com.geoview.model.User;
+import com.geoview.model.UserFavorites;
+import com.geoview.model.UserProfile;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserBinaryRedisSerializerTest {
+
+    private static final int CATALOG = 42;
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_789);
+
+    private final GenericJackson2JsonRedisSerializer json =
+        new GenericJackson2JsonRedisSerializer(RedisConfig.redisObjectMapper());
+
+    /** Stands in for the country catalog: "C<n>" is the country at index n. */
+    private final Function<List<String>, FavoriteCountrySet> catalog = codes -> {
+        long[] bits = new long[FavoriteCountrySet.WORDS];
+        for (String code : codes) {
+            int index = Integer.parseInt(code.substring(1));
+            bits[FavoriteCountrySet.word(index)] |= FavoriteCountrySet.mask(index);
+        }
+        return new FavoriteCountrySet(bits, new ArrayList<>(codes), CATALOG);
+    };
+
+    private final UserBinaryRedisSerializer binary = new UserBinaryRedisSerializer(json, true, 0, catalog);
+
+    @Test
+    void roundTripsUser() {
+        User user = user(3);
+
+        byte[] bytes = binary.serialize(user);
+        assertThat(bytes[0]).isEqualTo(UserBinaryRedisSerializer.MAGIC);
+        assertThat(bytes[1]).isEqualTo(UserBinaryRedisSerializer.SCHEMA_VERSION);
+
+        User read = (User) binary.deserialize(bytes);
+        assertThat(read).usingRecursiveComparison().isEqualTo(user);
+    }
+
+    @Test
+    void roundTripsProjections() {
+        UserProfile profile = new UserProfile();
+        profile.setId("u1");
+        profile.setUsername("alice");
+        profile.setEmail("alice@example.com");
+        profile.setCreatedAt(CREATED_AT);
+        profile.setTokenVersion(2);
+        profile.setVersion(9);
+        profile.setFavorites(favorites(2));
+        UserFavorites favorites = new UserFavorites("u1", favorites(5), 11);
+
+        assertThat(binary.deserialize(binary.serialize(profile))).usingRecursiveComparison().isEqualTo(profile);
+        assertThat(binary.deserialize(binary.serialize(favorites))).usingRecursiveComparison().isEqualTo(favorites);
+    }
+
+    @Test
+    void roundTripsNullFields() {
+        User user = new User();
+        user.setFavorites(null);
+
+        assertThat(binary.deserialize(binary.serialize(user))).usingRecursiveComparison().isEqualTo(user);
+    }
+
+    @Test
+    void deflatesLargeValuesOnly() {
+        UserBinaryRedisSerializer compressing = new UserBinaryRedisSerializer(json, true, 256, catalog);
+        User large = user(60);
+        User small = user(0);
+
+        byte[] deflated = compressing.serialize(large);
+        assertThat(deflated[2] & 1).isEqualTo(1);
+        assertThat(deflated.length).isLessThan(binary.serialize(large).length);
+        assertThat(compressing.deserialize(deflated)).usingRecursiveComparison().isEqualTo(large);
+        assertThat(compressing.serialize(small)[2]).isZero();
+    }
+
+    @Test
+    void roundTripsLongsInBothModes() {
+        UserBinaryRedisSerializer jsonMode = new UserBinaryRedisSerializer(json, false, 0, catalog);
+
+        byte[] bytes = binary.serialize(7L);
+        assertThat(bytes).hasSize(9);
+        assertThat(bytes[0]).isEqualTo(UserBinaryRedisSerializer.MAGIC_LONG);
+        assertThat(binary.deserialize(bytes)).isEqualTo(7L);
+
+        // The typed JSON serializer alone would read a small long back as an Integer
+        assertThat(jsonMode.deserialize(jsonMode.serialize(7L))).isEqualTo(7L);
+        assertThat(binary.deserialize(jsonMode.serialize(Long.MAX_VALUE))).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void readsEntriesWrittenInTheOtherMode() {
+        UserBinaryRedisSerializer jsonMode = new UserBinaryRedisSerializer(json, false, 0, catalog);
+        User user = user(2);
+
+        byte[] written = jsonMode.serialize(user);
+        assertThat(written[0]).isEqualTo((byte) '[');
+        assertThat(binary.deserialize(written)).usingRecursiveComparison().isEqualTo(user);
+        assertThat(jsonMode.deserialize(binary.serialize(user))).usingRecursiveComparison().isEqualTo(user);
+    }
+
+    @Test
+    void passesOtherValuesToTheFallback() {
+        assertThat(binary.deserialize(binary.serialize("hello"))).isEqualTo("hello");
+        assertThat(binary.deserialize(binary.serialize(new ArrayList<>(List.of("a", "b"))))).isEqualTo(List.of("a", "b"));
+    }
+
+    @Test
+    void readsUserSchemaOneWithoutVersionAndRebuildsFavorites() throws IOException {
+        LegacyWriter body = new LegacyWriter();
+        body.string("u1").string("alice").string("alice@example.com").string("hash").dateTime(CREATED_AT);
+        body.out.writeInt(4);
+        body.favoriteList("C3", "C70");
+
+        User read = (User) binary.deserialize(body.frame(UserBinaryRedisSerializer.MAGIC, 1));
+        assertThat(read.getUsername()).isEqualTo("alice");
+        assertThat(read.getPassword()).isEqualTo("hash");
+        assertThat(read.getCreatedAt()).isEqualTo(CREATED_AT);
+        assertThat(read.getTokenVersion()).isEqualTo(4);
+        assertThat(read.getVersion()).isZero();
+        assertFavorites(read.getFavorites(), 3, 70);
+    }
+
+    @Test
+    void readsUserSchemaTwoWithVersion() throws IOException {
+        LegacyWriter body = new LegacyWriter();
+        body.string("u1").string("alice").string("alice@example.com").string("hash").dateTime(null);
+        body.out.writeInt(1);
+        body.out.writeLong(17);
+        body.favoriteList("C200");
+
+        User read = (User) binary.deserialize(body.frame(UserBinaryRedisSerializer.MAGIC, 2));
+        assertThat(read.getVersion()).isEqualTo(17);
+        assertThat(read.getCreatedAt()).isNull();
+        assertFavorites(read.getFavorites(), 200);
+    }
+
+    @Test
+    void readsProjectionSchemaOne() throws IOException {
+        LegacyWriter profileBody = new LegacyWriter();
+        profileBody.string("u1").string("alice").string(null).dateTime(CREATED_AT);
+        profileBody.out.writeInt(2);
+        profileBody.out.writeLong(5);
+        profileBody.favoriteList("C1");
+        LegacyWriter favoritesBody = new LegacyWriter();
+        favoritesBody.string("u1");
+        favoritesBody.out.writeLong(6);
+        favoritesBody.favoriteList("C8", "C9");
+
+        UserProfile profile = (UserProfile) binary.deserialize(profileBody.frame(UserBinaryRedisSerializer.MAGIC_PROFILE, 1));
+        assertThat(profile.getEmail()).isNull();
+        assertThat(profile.getVersion()).isEqualTo(5);
+        assertFavorites(profile.getFavorites(), 1);
+
+        UserFavorites favorites = (UserFavorites) binary.deserialize(favoritesBody.frame(UserBinaryRedisSerializer.MAGIC_FAVORITES, 1));
+        assertThat(favorites.getVersion()).isEqualTo(6);
+        assertFavorites(favorites.getFavorites(), 8, 9);
+    }
+
+    @Test
+    void readsOlderLayoutsAsMissWithoutCatalog() throws IOException {
+        UserBinaryRedisSerializer withoutCatalog = new UserBinaryRedisSerializer(json, true, 0);
+        LegacyWriter body = new LegacyWriter();
+        body.string("u1");
+        body.out.writeLong(6);
+        body.favoriteList("C8");
+
+        assertThat(withoutCatalog.deserialize(body.frame(UserBinaryRedisSerializer.MAGIC_FAVORITES, 1))).isNull();
+        User user = user(1);
+        assertThat(withoutCatalog.deserialize(withoutCatalog.serialize(user))).usingRecursiveComparison().isEqualTo(user);
+    }
+
+    @Test
+    void rejectsUnknownSchemaVersions() {
+        byte[] bytes = binary.serialize(user(1));
+        bytes[1] = (byte) (UserBinaryRedisSerializer.SCHEMA_VERSION + 1);
+
+        assertThatThrownBy(() -> binary.deserialize(bytes)).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> binary.deserialize(new byte[] {UserBinaryRedisSerializer.MAGIC}))
+            .isInstanceOf(SerializationException.class);
+    }
+
+    private static void assertFavorites(FavoriteCountrySet favorites, int... indexes) {
+        assertThat(favorites.getCatalog()).isEqualTo(CATALOG);
+        List<String> codes = new ArrayList<>();
+        for (int index : indexes) {
+            assertThat(favorites.contains(index)).isTrue();
+            codes.add("C" + index);
+        }
+        assertThat(favorites.getCodes()).isEqualTo(codes);
+        assertThat(favorites.contains(0)).isFalse();
+    }
+
+    private static User user(int favoriteCount) {
+        User user = new User("alice", "alice@example.com", "$2a$10$abcdefghijklmnopqrstuv");
+        user.setId("65f0c0ffee0000000000beef");
+        user.setCreatedAt(CREATED_AT);
+        user.setTokenVersion(3);
+        user.setVersion(12);
+        user.setFavorites(favorites(favoriteCount));
+        return user;
+    }
+
+    private static FavoriteCountrySet favorites(int count) {
+        long[] bits = new long[FavoriteCountrySet.WORDS];
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int index = (i * 37) % FavoriteCountrySet.CAPACITY;
+            bits[FavoriteCountrySet.word(index)] |= FavoriteCountrySet.mask(index);
+            codes.add("C" + index);
+        }
+        return new FavoriteCountrySet(bits, codes, CATALOG);
+    }
+
+    /** Writes bodies in the layouts of earlier schema versions, which are no longer written. */
+    private static final class LegacyWriter {
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(buffer);
+
+        LegacyWriter string(String value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeUTF(value);
+            }
+            return this;
+        }
+
+        LegacyWriter dateTime(LocalDateTime value) throws IOException {
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(value.getNano());
+            }
+            return this;
+        }
+
+        /** The full favorite list: code, name and flag URL per entry. */
+        void favoriteList(String... codes) throws IOException {
+            out.writeInt(codes.length);
+            for (String code : codes) {
+                string(code).string("Country " + code).string(null);
+            }
+        }
+
+        byte[] frame(byte magic, int schemaVersion) throws IOException {
+            out.flush();
+            byte[] body = buffer.toByteArray();
+            byte[] framed = new byte[body.length + 3];
+            framed[0] = magic;
+            framed[1] = (byte) schemaVersion;
+            System.arraycopy(body, 0, framed, 3, body.length);
+            return framed;
+        }
+    }
+}
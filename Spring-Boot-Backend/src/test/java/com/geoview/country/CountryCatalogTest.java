@@ -0,0 +1,79 @@
+package com.geoview.country;
+
+import com.geoview.model.FavoriteCountry;
+import com.geoview.model.FavoriteCountrySet;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountryCatalogTest {
+
+    private static CountryCatalog catalog;
+
+    @BeforeAll
+    static void loadCatalog() throws IOException {
+        catalog = new CountryCatalog();
+        ReflectionTestUtils.setField(catalog, "dataset", new ClassPathResource("countries/countries.json"));
+        catalog.load();
+    }
+
+    private static int index(String code) {
+        return catalog.findByCode(code).orElseThrow().getIndex();
+    }
+
+    @Test
+    void indexesCountriesByAlpha2Code() {
+        assertThat(catalog.size()).isBetween(200, FavoriteCountrySet.CAPACITY);
+        for (int i = 1; i < catalog.size(); i++) {
+            assertThat(catalog.get(i - 1).getCca2()).isLessThan(catalog.get(i).getCca2());
+            assertThat(catalog.get(i).getIndex()).isEqualTo(i);
+        }
+        assertThat(catalog.findByCode("fra")).containsSame(catalog.findByCode("FR").orElseThrow());
+        assertThat(catalog.findByCode("XX")).isEmpty();
+        assertThat(catalog.findByCode(null)).isEmpty();
+    }
+
+    @Test
+    void favoriteSetKeepsInsertionOrderAndSetsOneBitPerCountry() {
+        FavoriteCountrySet favorites = catalog.favoriteSet(List.of("fr", "DEU", "JP"));
+
+        assertThat(favorites.getCodes()).containsExactly("FR", "DE", "JP");
+        assertThat(favorites.getCatalog()).isEqualTo(catalog.fingerprint());
+        assertThat(favorites.contains(index("FR"))).isTrue();
+        assertThat(favorites.contains(index("DE"))).isTrue();
+        assertThat(favorites.contains(index("JP"))).isTrue();
+        assertThat(Arrays.stream(favorites.getBits()).map(Long::bitCount).sum()).isEqualTo(3);
+    }
+
+    @Test
+    void favoriteSetDropsDuplicatesAndBlanks() {
+        FavoriteCountrySet favorites = catalog.favoriteSet(Arrays.asList("FR", "fra", null, " ", "fr"));
+
+        assertThat(favorites.getCodes()).containsExactly("FR");
+        assertThat(favorites.size()).isEqualTo(1);
+    }
+
+    @Test
+    void favoriteSetKeepsCodesMissingFromTheCatalogWithoutABit() {
+        FavoriteCountrySet favorites = catalog.favoriteSet(List.of("FR", "qq", "QQ"));
+
+        assertThat(favorites.getCodes()).containsExactly("FR", "QQ");
+        assertThat(Arrays.stream(favorites.getBits()).map(Long::bitCount).sum()).isEqualTo(1);
+        assertThat(catalog.resolve(favorites)).extracting(FavoriteCountry::getCountryCode).containsExactly("FR");
+    }
+
+    @Test
+    void emptyFavoriteSetCarriesTheFingerprint() {
+        FavoriteCountrySet favorites = catalog.favoriteSet(List.of());
+
+        assertThat(favorites.getCodes()).isEmpty();
+        assertThat(favorites.getCatalog()).isEqualTo(catalog.fingerprint()).isNotZero();
+    }
+}
@@ -0,0 +1,113 @@
+package com.geoview.country;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CountrySearchIndexTest {
+
+    private static CountrySearchIndex index;
+
+    @BeforeAll
+    static void buildIndex() throws IOException {
+        CountryCatalog catalog = new CountryCatalog();
+        ReflectionTestUtils.setField(catalog, "dataset", new ClassPathResource("countries/countries.json"));
+        catalog.load();
+
+        index = new CountrySearchIndex();
+        ReflectionTestUtils.setField(index, "countryCatalog", catalog);
+        index.build();
+    }
+
+    private static List<String> codes(String query, int limit) {
+        return index.search(query, limit).stream().map(Country::getCca2).toList();
+    }
+
+    @Test
+    void exactCodeRanksFirst() {
+        assertThat(codes("fr", 5)).first().isEqualTo("FR");
+        assertThat(codes("DEU", 5)).first().isEqualTo("DE");
+    }
+
+    @Test
+    void namePrefixMatches() {
+        assertThat(codes("germ", 5)).first().isEqualTo("DE");
+        assertThat(codes("united", 10)).contains("GB", "US", "AE");
+    }
+
+    @Test
+    void matchesWordsInsideTerms() {
+        assertThat(codes("kingdom", 5)).containsExactly("GB");
+    }
+
+    @Test
+    void matchesCapitals() {
+        // No country name starts with these; they match capitals
+        assertThat(codes("paris", 5)).first().isEqualTo("FR");
+        assertThat(codes("berlin", 5)).first().isEqualTo("DE");
+    }
+
+    @Test
+    void toleratesTypos() {
+        assertThat(codes("germnay", 5)).first().isEqualTo("DE");
+        assertThat(codes("swtizerland", 5)).first().isEqualTo("CH");
+        assertThat(codes("fracne", 5)).first().isEqualTo("FR");
+    }
+
+    @Test
+    void ignoresCaseDiacriticsAndPunctuation() {
+        assertThat(codes("CÔTE", 5)).first().isEqualTo("CI");
+        assertThat(codes("cote d'ivoire", 5)).first().isEqualTo("CI");
+    }
+
+    @Test
+    void shortQueriesAreNotMatchedFuzzily() {
+        assertThat(codes("xq", 5)).isEmpty();
+    }
+
+    @Test
+    void respectsLimit() {
+        assertThat(index.search("a", 3)).hasSize(3);
+        assertThat(index.search("a", 500)).hasSizeLessThanOrEqualTo(CountrySearchIndex.MAX_LIMIT);
+        assertThat(index.search("a", 0)).isEmpty();
+        assertThat(index.search("  ", 5)).isEmpty();
+    }
+
+    @Test
+    void concurrentSearchesDoNotShareBuffers() throws Exception {
+        List<String> queries = List.of("germnay", "united", "paris", "fracne", "kingdom", "swtizerland");
+        List<List<String>> expected = queries.stream().map(query -> codes(query, 10)).toList();
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 64; t++) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        int q = i % queries.size();
+                        if (!codes(queries.get(q), 10).equals(expected.get(q))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get(30, TimeUnit.SECONDS)).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.geoview.repository;
+
+import com.geoview.country.Country;
+import com.geoview.country.CountryCatalog;
+import com.geoview.model.FavoriteCountrySet;
+import com.geoview.model.User;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FavoriteQueriesTest {
+
+    private static final int CATALOG = 42;
+
+    private static CountryCatalog catalog;
+
+    @BeforeAll
+    static void loadCatalog() {
+        catalog = new CountryCatalog();
+        ReflectionTestUtils.setField(catalog, "dataset", new ClassPathResource("countries/countries.json"));
+        ReflectionTestUtils.invokeMethod(catalog, "load");
+    }
+
+    private static Country country(String code) {
+        return catalog.findByCode(code).orElseThrow();
+    }
+
+    @Test
+    void addMatchesOnlyWhileTheBitIsClear() {
+        Country france = country("FR");
+        int index = france.getIndex();
+
+        Document query = FavoriteQueries.add("u1", france, CATALOG).getQueryObject();
+
+        assertThat(query.get("_id")).isEqualTo("u1");
+        assertThat(query.get("favorites.catalog")).isEqualTo(CATALOG);
+        assertThat(query.get("favorites.bits." + FavoriteCountrySet.word(index)))
+            .isEqualTo(new Document("$bitsAllClear", List.of(index & 63)));
+    }
+
+    @Test
+    void addUpdateSetsTheBitAndAppendsTheCode() {
+        Country france = country("FR");
+        int index = france.getIndex();
+
+        Document update = FavoriteQueries.addUpdate(france).getUpdateObject();
+
+        assertThat(update.get("$push", Document.class).get("favorites.codes")).isEqualTo("FR");
+        assertThat(update.get("$inc", Document.class).get("version")).isEqualTo(1);
+        assertThat(update.get("$bit", Document.class).get("favorites.bits." + FavoriteCountrySet.word(index)))
+            .isEqualTo(new Document("or", FavoriteCountrySet.mask(index)));
+    }
+
+    @Test
+    void removeUpdateClearsTheBitAndPullsTheCode() {
+        Country japan = country("JP");
+        int index = japan.getIndex();
+
+        Document query = FavoriteQueries.remove("u1", CATALOG).getQueryObject();
+        Document update = FavoriteQueries.removeUpdate(japan).getUpdateObject();
+
+        assertThat(query).isEqualTo(new Document("_id", "u1").append("favorites.catalog", CATALOG));
+        assertThat(update.get("$pull", Document.class).get("favorites.codes")).isEqualTo("JP");
+        assertThat(update.get("$inc", Document.class).get("version")).isEqualTo(1);
+        assertThat(update.get("$bit", Document.class).get("favorites.bits." + FavoriteCountrySet.word(index)))
+            .isEqualTo(new Document("and", ~FavoriteCountrySet.mask(index)));
+    }
+
+    @Test
+    void staleMatchesBitmapsOfOtherCatalogs() {
+        assertThat(FavoriteQueries.stale("u1", CATALOG).getQueryObject())
+            .isEqualTo(new Document("_id", "u1").append("favorites.catalog", new Document("$ne", CATALOG)));
+        assertThat(FavoriteQueries.stale(CATALOG).getQueryObject())
+            .isEqualTo(new Document("favorites.catalog", new Document("$ne", CATALOG)));
+    }
+
+    @Test
+    void readsCurrentBitmapsAndLegacyLists() {
+        Document current = new Document("favorites",
+            new Document("bits", List.of(0L, 0L, 0L, 0L)).append("codes", List.of("FR", "DE")).append("catalog", CATALOG));
+        Document legacy = new Document("favoriteCountries", List.of(
+            new Document("countryCode", "JP").append("countryName", "Japan"),
+            new Document("countryCode", "BR").append("countryName", "Brazil")));
+
+        assertThat(FavoriteQueries.isCurrent(current, CATALOG)).isTrue();
+        assertThat(FavoriteQueries.isCurrent(current, CATALOG + 1)).isFalse();
+        assertThat(FavoriteQueries.isCurrent(legacy, CATALOG)).isFalse();
+        assertThat(FavoriteQueries.storedCodes(current)).containsExactly("FR", "DE");
+        assertThat(FavoriteQueries.storedCodes(legacy)).containsExactly("JP", "BR");
+        assertThat(FavoriteQueries.storedCodes(new Document())).isEmpty();
+    }
+
+    @Test
+    void migrationWritesTheBitmapAndDropsTheLegacyList() {
+        FavoriteCountrySet favorites = catalog.favoriteSet(List.of("JP", "BR"));
+
+        Document update = FavoriteQueries.migration(favorites).getUpdateObject();
+
+        Document stored = update.get("$set", Document.class).get("favorites", Document.class);
+        assertThat(stored.getList("bits", Long.class)).hasSize(FavoriteCountrySet.WORDS);
+        assertThat(stored.getList("codes", String.class)).containsExactly("JP", "BR");
+        assertThat(stored.get("catalog")).isEqualTo(catalog.fingerprint());
+        assertThat(update.get("$unset", Document.class)).containsKey("favoriteCountries");
+
+        Document migrated = new Document("favorites", stored);
+        assertThat(FavoriteQueries.isCurrent(migrated, catalog.fingerprint())).isTrue();
+        assertThat(FavoriteQueries.storedCodes(migrated)).containsExactly("JP", "BR");
+    }
+
+    @Test
+    void registeredUserNeedsNoMigration() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        User user = new User("alice", "alice@example.com", "hash");
+        user.setFavorites(catalog.favoriteSet(List.of()));
+        Document stored = new Document();
+
+        converter.write(user, stored);
+
+        assertThat(FavoriteQueries.isCurrent(stored, catalog.fingerprint())).isTrue();
+        assertThat(FavoriteQueries.storedCodes(stored)).isEmpty();
+    }
+}
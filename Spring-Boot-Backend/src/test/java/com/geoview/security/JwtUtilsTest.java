@@ -0,0 +1,72 @@
+package com.geoview.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilsTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-0123";
+
+    private static JwtUtils jwtUtils(String secret, int expirationMs) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", secret);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", expirationMs);
+        ReflectionTestUtils.setField(jwtUtils, "jwtCacheMaxSize", 100L);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+
+    @Test
+    void parsesTheClaimsOfAValidToken() {
+        JwtUtils jwtUtils = jwtUtils(SECRET, 60_000);
+        long before = System.currentTimeMillis();
+
+        JwtClaims claims = jwtUtils.parseToken(jwtUtils.generateJwtToken("u1"));
+
+        assertThat(claims).isNotNull();
+        assertThat(claims.getSubject()).isEqualTo("u1");
+        // JWT dates have second precision
+        assertThat(claims.getExpiration().getTime()).isBetween(before + 59_000, before + 61_000);
+        assertThat(jwtUtils.getUserIdFromJwtToken(jwtUtils.generateJwtToken("u2"))).isEqualTo("u2");
+    }
+
+    @Test
+    void servesRepeatedTokensFromTheCache() {
+        JwtUtils jwtUtils = jwtUtils(SECRET, 60_000);
+        String token = jwtUtils.generateJwtToken("u1");
+
+        assertThat(jwtUtils.parseToken(token)).isSameAs(jwtUtils.parseToken(token));
+    }
+
+    @Test
+    void rejectsTamperedAndForeignTokens() {
+        JwtUtils jwtUtils = jwtUtils(SECRET, 60_000);
+        String token = jwtUtils.generateJwtToken("u1");
+        String foreign = jwtUtils("another-secret-another-secret-0123456789", 60_000).generateJwtToken("u1");
+        String tampered = token.substring(0, token.length() - 2)
+            + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThat(jwtUtils.parseToken(tampered)).isNull();
+        assertThat(jwtUtils.parseToken(foreign)).isNull();
+        assertThat(jwtUtils.parseToken("not.a.jwt")).isNull();
+        assertThat(jwtUtils.parseToken("")).isNull();
+        assertThat(jwtUtils.parseToken(null)).isNull();
+        assertThat(jwtUtils.validateJwtToken(tampered)).isFalse();
+    }
+
+    @Test
+    void cachedTokenIsRejectedOnceItExpires() throws InterruptedException {
+        JwtUtils jwtUtils = jwtUtils(SECRET, 1_500);
+        String token = jwtUtils.generateJwtToken("u1");
+
+        JwtClaims claims = jwtUtils.parseToken(token);
+        assertThat(claims).isNotNull();
+        assertThat(jwtUtils.parseToken(token)).isSameAs(claims);
+
+        Thread.sleep(Math.max(0, claims.getExpiration().getTime() - System.currentTimeMillis()) + 50);
+        assertThat(jwtUtils.parseToken(token)).isNull();
+        assertThat(jwtUtils.validateJwtToken(token)).isFalse();
+    }
+}
@@ -0,0 +1,112 @@
+package com.geoview.service;
+
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AccountAvailabilityServiceTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final AccountAvailabilityService service = new AccountAvailabilityService();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "expectedUsers", 1_000L);
+        ReflectionTestUtils.setField(service, "falsePositiveRate", 0.01);
+        MongoCollection<Document> users = mock(MongoCollection.class);
+        when(users.estimatedDocumentCount()).thenReturn(2L);
+        when(mongoTemplate.getCollection("users")).thenReturn(users);
+        // Every value reaching the database is taken there, so "available" means the filter answered
+        when(mongoTemplate.exists(any(Query.class), eq("users"))).thenReturn(true);
+    }
+
+    private void rebuildWith(Document... users) {
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("users"))).thenReturn(Stream.of(users));
+        service.rebuild();
+    }
+
+    @Test
+    void asksTheDatabaseUntilTheFiltersAreBuilt() {
+        assertThat(service.isUsernameAvailable("bob")).isFalse();
+        assertThat(service.isEmailAvailable("bob@example.com")).isFalse();
+        verify(mongoTemplate, times(2)).exists(any(Query.class), eq("users"));
+    }
+
+    @Test
+    void answersUnknownValuesFromTheFilters() {
+        rebuildWith(new Document("username", "alice").append("email", "alice@example.com"),
+                    new Document("username", "carol").append("email", "carol@example.com"));
+
+        assertThat(service.isUsernameAvailable("bob")).isTrue();
+        assertThat(service.isEmailAvailable("bob@example.com")).isTrue();
+        verify(mongoTemplate, never()).exists(any(Query.class), eq("users"));
+
+        assertThat(service.isUsernameAvailable("alice")).isFalse();
+        assertThat(service.isEmailAvailable("CAROL@Example.com")).isFalse();
+        verify(mongoTemplate, times(2)).exists(any(Query.class), eq("users"));
+    }
+
+    @Test
+    void recordedValuesAreTakenUntilTheNextRebuild() {
+        rebuildWith(new Document("username", "alice").append("email", "alice@example.com"));
+
+        service.recordTaken("bob", "Bob@Example.com");
+
+        assertThat(service.isUsernameAvailable("bob")).isFalse();
+        assertThat(service.isEmailAvailable("bob@example.com")).isFalse();
+    }
+
+    @Test
+    void failedRebuildKeepsThePreviousFilters() {
+        rebuildWith(new Document("username", "alice").append("email", "alice@example.com"));
+        when(mongoTemplate.getCollection("users")).thenThrow(new IllegalStateException("mongo down"));
+
+        service.rebuild();
+
+        assertThat(service.isUsernameAvailable("bob")).isTrue();
+        assertThat(service.isUsernameAvailable("alice")).isFalse();
+    }
+
+    @Test
+    void readsTheDuplicateFieldFromTheIndexName() {
+        assertThat(AccountAvailabilityService.duplicateField(duplicate(
+            "E11000 duplicate key error collection: geoviewdb.users index: username dup key: { username: \"alice\" }")))
+            .isEqualTo(AccountAvailabilityService.FIELD_USERNAME);
+        assertThat(AccountAvailabilityService.duplicateField(duplicate(
+            "E11000 duplicate key error collection: geoviewdb.users index: email_1 dup key: { email: \"a@b.c\" }")))
+            .isEqualTo(AccountAvailabilityService.FIELD_EMAIL);
+        assertThat(AccountAvailabilityService.duplicateField(duplicate(
+            "Write operation error on server. E11000 duplicate key error collection: geoviewdb.users index: email")))
+            .isEqualTo(AccountAvailabilityService.FIELD_EMAIL);
+    }
+
+    @Test
+    void unknownDuplicateIndexIsNull() {
+        assertThat(AccountAvailabilityService.duplicateField(duplicate(
+            "E11000 duplicate key error collection: geoviewdb.users index: _id_ dup key: { _id: \"u1\" }"))).isNull();
+        assertThat(AccountAvailabilityService.duplicateField(duplicate("E11000 duplicate key error"))).isNull();
+        assertThat(AccountAvailabilityService.duplicateField(new DuplicateKeyException(null))).isNull();
+    }
+
+    private static DuplicateKeyException duplicate(String message) {
+        return new DuplicateKeyException(message);
+    }
+}
@@ -0,0 +1,127 @@
+package com.geoview.service;
+
+import com.geoview.cache.CacheInvalidationBroadcaster;
+import com.geoview.cache.CacheTags;
+import com.geoview.cache.TwoLevelCacheManager;
+import com.geoview.cache.UserCacheInvalidator;
+import com.geoview.country.CountryCatalog;
+import com.geoview.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringJUnitConfig
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class UserServiceTest {
+
+    @Configuration
+    @EnableCaching
+    static class Config {
+
+        @Bean
+        TagClock tagClock() {
+            return new TagClock();
+        }
+
+        @Bean
+        CacheManager cacheManager(TagClock tagClock) {
+            return new TwoLevelCacheManager(new ConcurrentMapCacheManager(), mock(CacheInvalidationBroadcaster.class),
+                                            100, Duration.ofMinutes(10), null, null, 0, tagClock.tags);
+        }
+
+        @Bean
+        UserService userService() {
+            return new UserService();
+        }
+    }
+
+    /**
+     * Stands in for the Redis invalidation clock: an entry is accepted when no tag was
+     * invalidated after the clock value its load started at.
+     */
+    static class TagClock {
+
+        private final AtomicLong clock = new AtomicLong();
+        private final AtomicLong invalidatedAt = new AtomicLong();
+        private final CacheTags tags = mock(CacheTags.class);
+
+        TagClock() {
+            when(tags.clock()).thenAnswer(invocation -> clock.get());
+            // Without a clock, registration cannot tell a load that raced a write
+            when(tags.register(anyString(), any(), any())).thenReturn(true);
+            when(tags.register(anyString(), any(), any(), anyLong()))
+                .thenAnswer(invocation -> invalidatedAt.get() <= invocation.<Long>getArgument(3));
+            when(tags.confirm(anyString(), any(), any(), anyLong()))
+                .thenAnswer(invocation -> invalidatedAt.get() <= invocation.<Long>getArgument(3));
+        }
+
+        void invalidate() {
+            invalidatedAt.set(clock.incrementAndGet());
+        }
+    }
+
+    @Autowired
+    private UserService userService;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private UserDetailsServiceImpl userDetailsService;
+
+    @MockBean
+    private UserCacheInvalidator userCacheInvalidator;
+
+    @MockBean
+    private CountryCatalog countryCatalog;
+
+    @MockBean
+    private AccountAvailabilityService accountAvailabilityService;
+
+    @Autowired
+    private TagClock tagClock;
+
+    @Test
+    void versionReadBeforeAConcurrentWriteIsNotCached() {
+        when(userRepository.findVersionById("u1")).thenAnswer(invocation -> {
+            // A favorite change commits version 8 and invalidates the user's tag
+            // after this read returned 7
+            tagClock.invalidate();
+            return 7L;
+        }).thenReturn(8L);
+
+        assertThat(userService.getUserVersion("u1")).isEqualTo(7L);
+        assertThat(userService.getUserVersion("u1")).isEqualTo(8L);
+        assertThat(userService.getUserVersion("u1")).isEqualTo(8L);
+        verify(userRepository, times(2)).findVersionById("u1");
+    }
+
+    @Test
+    void missingUserVersionIsNotCached() {
+        when(userRepository.findVersionById("u1")).thenReturn(null, 3L);
+
+        assertThat(userService.getUserVersion("u1")).isNull();
+        assertThat(userService.getUserVersion("u1")).isEqualTo(3L);
+        assertThat(userService.getUserVersion("u1")).isEqualTo(3L);
+        verify(userRepository, times(2)).findVersionById("u1");
+    }
+}